@@ -2,8 +2,10 @@ package com.SimpleBankAPI;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SimpleBankApiApplication {
 
 	public static void main(String[] args) {
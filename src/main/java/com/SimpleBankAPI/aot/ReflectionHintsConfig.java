@@ -0,0 +1,29 @@
+package com.SimpleBankAPI.aot;
+
+import com.SimpleBankAPI.diagnostics.HotAccountsReport;
+import com.SimpleBankAPI.dtos.ActivitySummary;
+import com.SimpleBankAPI.dtos.BatchItemResult;
+import com.SimpleBankAPI.dtos.DepositRequest;
+import com.SimpleBankAPI.dtos.StandingOrderRequest;
+import com.SimpleBankAPI.dtos.TransferRequest;
+import com.SimpleBankAPI.dtos.WithdrawalRequest;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.ShardTransfer;
+import com.SimpleBankAPI.models.StandingOrder;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.sharding.ReplicaRoutingDataSource;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reflection hints for the types Jackson reads and writes, picked up by AOT processing
+ * (the {@code fast-start} and {@code native} profiles). Only needed for a GraalVM native image,
+ * on the JVM the annotation has no effect.
+ */
+@Configuration(proxyBeanMethods = false)
+@RegisterReflectionForBinding({Account.class, Transaction.class, ShardTransfer.class,
+        StandingOrder.class, DepositRequest.class, WithdrawalRequest.class, TransferRequest.class,
+        StandingOrderRequest.class, ActivitySummary.class, BatchItemResult.class, HotAccountsReport.class,
+        ReplicaRoutingDataSource.ReplicaStatus.class})
+public class ReflectionHintsConfig {
+}
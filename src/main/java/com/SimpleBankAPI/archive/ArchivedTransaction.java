@@ -0,0 +1,26 @@
+package com.SimpleBankAPI.archive;
+
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Flat copy of a transaction row as it is stored in an archive segment.
+ */
+public record ArchivedTransaction(UUID id, UUID accountId, String transactionRef,
+                                  BigDecimal debit, BigDecimal credit, LocalDateTime date) {
+
+    public Transaction toTransaction(Account account) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionRef(transactionRef);
+        transaction.setDebit(debit);
+        transaction.setCredit(credit);
+        transaction.setDate(date);
+        transaction.setAccount(account);
+        return transaction;
+    }
+}
@@ -0,0 +1,73 @@
+package com.SimpleBankAPI.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Layout and primitive encodings shared by {@link SegmentWriter} and {@link SegmentReader}.
+ *
+ * <pre>
+ * header : magic(8) version(4) accountCount(4) indexOffset(8)
+ * blocks : one deflated block per account, columns stored one after another:
+ *          ids(16 * n) dates(zigzag varint deltas) flags(n) credits(varint) debits(varint) refs(varint length + utf8)
+ * index  : accountCount entries sorted by account id, see INDEX_ENTRY_SIZE
+ * </pre>
+ */
+final class SegmentCodec {
+    static final long MAGIC = 0x5458534547303031L; // "TXSEG001"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    // msb(8) lsb(8) blockOffset(8) compressedLength(4) rawLength(4) rowCount(4) minDate(8) maxDate(8)
+    static final int INDEX_ENTRY_SIZE = 52;
+
+    static final byte HAS_CREDIT = 1;
+    static final byte HAS_DEBIT = 2;
+
+    private static final int AMOUNT_SCALE = 2;
+
+    private SegmentCodec() {
+    }
+
+    static long toMicros(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + date.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    // amounts are stored as cents, the same scale the database column uses
+    static long toCents(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, AMOUNT_SCALE);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (result >>> 1) ^ -(result & 1);
+    }
+}
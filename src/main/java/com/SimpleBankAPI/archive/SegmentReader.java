@@ -0,0 +1,151 @@
+package com.SimpleBankAPI.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of a segment file. The whole file is memory-mapped and only absolute
+ * reads are used on the shared buffer, so one reader can serve concurrent queries.
+ */
+class SegmentReader {
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int accountCount;
+    private final int indexOffset;
+
+    SegmentReader(Path file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < SegmentCodec.HEADER_SIZE || buffer.getLong(0) != SegmentCodec.MAGIC) {
+            throw new IOException("Not a transaction segment: " + file);
+        }
+        if (buffer.getInt(8) != SegmentCodec.VERSION) {
+            throw new IOException("Unsupported segment version in " + file);
+        }
+        this.accountCount = buffer.getInt(12);
+        this.indexOffset = Math.toIntExact(buffer.getLong(16));
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the rows of the account with {@code from <= date <= to}; null bounds are open.
+     */
+    List<ArchivedTransaction> find(UUID accountId, LocalDateTime from, LocalDateTime to) {
+        int entry = findEntry(accountId);
+        if (entry < 0) {
+            return List.of();
+        }
+        long fromMicros = from == null ? Long.MIN_VALUE : SegmentCodec.toMicros(from);
+        long toMicros = to == null ? Long.MAX_VALUE : SegmentCodec.toMicros(to);
+        int base = indexOffset + entry * SegmentCodec.INDEX_ENTRY_SIZE;
+        long minDate = buffer.getLong(base + 36);
+        long maxDate = buffer.getLong(base + 44);
+        if (maxDate < fromMicros || minDate > toMicros) {
+            return List.of();
+        }
+        int blockOffset = Math.toIntExact(buffer.getLong(base + 16));
+        int compressedLength = buffer.getInt(base + 24);
+        int rawLength = buffer.getInt(base + 28);
+        int rowCount = buffer.getInt(base + 32);
+        ByteBuffer raw = inflate(buffer.slice(blockOffset, compressedLength), rawLength);
+        return decode(accountId, raw, rowCount, fromMicros, toMicros);
+    }
+
+    private int findEntry(UUID accountId) {
+        long msb = accountId.getMostSignificantBits();
+        long lsb = accountId.getLeastSignificantBits();
+        int low = 0;
+        int high = accountCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int base = indexOffset + mid * SegmentCodec.INDEX_ENTRY_SIZE;
+            int cmp = Long.compare(buffer.getLong(base), msb);
+            if (cmp == 0) {
+                cmp = Long.compare(buffer.getLong(base + 8), lsb);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer inflate(ByteBuffer compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                n += inflater.inflate(raw, n, rawLength - n);
+            }
+            return ByteBuffer.wrap(raw);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted segment " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private List<ArchivedTransaction> decode(UUID accountId, ByteBuffer raw, int rowCount,
+                                             long fromMicros, long toMicros) {
+        UUID[] ids = new UUID[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            ids[i] = new UUID(raw.getLong(), raw.getLong());
+        }
+        long[] dates = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previous += SegmentCodec.readVarLong(raw);
+            dates[i] = previous;
+        }
+        byte[] flags = new byte[rowCount];
+        raw.get(flags);
+        long[] credits = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            if ((flags[i] & SegmentCodec.HAS_CREDIT) != 0) credits[i] = SegmentCodec.readVarLong(raw);
+        }
+        long[] debits = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            if ((flags[i] & SegmentCodec.HAS_DEBIT) != 0) debits[i] = SegmentCodec.readVarLong(raw);
+        }
+
+        List<ArchivedTransaction> result = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            int length = (int) SegmentCodec.readVarLong(raw);
+            String ref = null;
+            if (length > 0) {
+                ref = new String(raw.array(), raw.position(), length - 1, StandardCharsets.UTF_8);
+                raw.position(raw.position() + length - 1);
+            }
+            if (dates[i] < fromMicros || dates[i] > toMicros) {
+                continue;
+            }
+            result.add(new ArchivedTransaction(ids[i], accountId, ref,
+                    (flags[i] & SegmentCodec.HAS_DEBIT) != 0 ? SegmentCodec.fromCents(debits[i]) : null,
+                    (flags[i] & SegmentCodec.HAS_CREDIT) != 0 ? SegmentCodec.fromCents(credits[i]) : null,
+                    SegmentCodec.fromMicros(dates[i])));
+        }
+        return result;
+    }
+}
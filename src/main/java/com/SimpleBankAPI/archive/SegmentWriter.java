@@ -0,0 +1,165 @@
+package com.SimpleBankAPI.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one segment file. Rows must arrive grouped by account and ordered by date inside the group.
+ */
+class SegmentWriter implements AutoCloseable {
+    private final FileChannel channel;
+    private final Deflater deflater = new Deflater();
+    private final List<IndexEntry> index = new ArrayList<>();
+    private final Set<UUID> writtenAccounts = new HashSet<>();
+    private final List<ArchivedTransaction> pending = new ArrayList<>();
+    private long position = SegmentCodec.HEADER_SIZE;
+    private long rowCount;
+
+    SegmentWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    void append(ArchivedTransaction row) throws IOException {
+        if (!pending.isEmpty() && !pending.get(0).accountId().equals(row.accountId())) {
+            flushBlock();
+        }
+        if (pending.isEmpty() && writtenAccounts.contains(row.accountId())) {
+            throw new IllegalStateException("Rows for account " + row.accountId() + " are not contiguous");
+        }
+        pending.add(row);
+        rowCount++;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the index and header and forces everything to disk.
+     */
+    void finish() throws IOException {
+        if (!pending.isEmpty()) {
+            flushBlock();
+        }
+        index.sort(Comparator.comparing(IndexEntry::accountId));
+        ByteBuffer indexBuffer = ByteBuffer.allocate(index.size() * SegmentCodec.INDEX_ENTRY_SIZE);
+        for (IndexEntry entry : index) {
+            indexBuffer.putLong(entry.accountId().getMostSignificantBits());
+            indexBuffer.putLong(entry.accountId().getLeastSignificantBits());
+            indexBuffer.putLong(entry.offset());
+            indexBuffer.putInt(entry.compressedLength());
+            indexBuffer.putInt(entry.rawLength());
+            indexBuffer.putInt(entry.rowCount());
+            indexBuffer.putLong(entry.minDate());
+            indexBuffer.putLong(entry.maxDate());
+        }
+        indexBuffer.flip();
+        long indexOffset = position;
+        writeFully(indexBuffer, indexOffset);
+        if (indexOffset + indexBuffer.capacity() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Segment is too large to be memory-mapped");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(SegmentCodec.HEADER_SIZE);
+        header.putLong(SegmentCodec.MAGIC);
+        header.putInt(SegmentCodec.VERSION);
+        header.putInt(index.size());
+        header.putLong(indexOffset);
+        header.flip();
+        writeFully(header, 0);
+        channel.force(true);
+    }
+
+    private void flushBlock() throws IOException {
+        int count = pending.size();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(count * 48);
+        ByteBuffer ids = ByteBuffer.allocate(count * 16);
+        for (ArchivedTransaction row : pending) {
+            ids.putLong(row.id().getMostSignificantBits());
+            ids.putLong(row.id().getLeastSignificantBits());
+        }
+        raw.write(ids.array(), 0, ids.capacity());
+
+        long previous = 0;
+        long minDate = Long.MAX_VALUE;
+        long maxDate = Long.MIN_VALUE;
+        for (ArchivedTransaction row : pending) {
+            long micros = SegmentCodec.toMicros(row.date());
+            SegmentCodec.writeVarLong(raw, micros - previous);
+            previous = micros;
+            minDate = Math.min(minDate, micros);
+            maxDate = Math.max(maxDate, micros);
+        }
+        for (ArchivedTransaction row : pending) {
+            byte flags = 0;
+            if (row.credit() != null) flags |= SegmentCodec.HAS_CREDIT;
+            if (row.debit() != null) flags |= SegmentCodec.HAS_DEBIT;
+            raw.write(flags);
+        }
+        for (ArchivedTransaction row : pending) {
+            if (row.credit() != null) SegmentCodec.writeVarLong(raw, SegmentCodec.toCents(row.credit()));
+        }
+        for (ArchivedTransaction row : pending) {
+            if (row.debit() != null) SegmentCodec.writeVarLong(raw, SegmentCodec.toCents(row.debit()));
+        }
+        for (ArchivedTransaction row : pending) {
+            if (row.transactionRef() == null) {
+                SegmentCodec.writeVarLong(raw, 0);
+            } else {
+                byte[] ref = row.transactionRef().getBytes(StandardCharsets.UTF_8);
+                SegmentCodec.writeVarLong(raw, ref.length + 1);
+                raw.write(ref, 0, ref.length);
+            }
+        }
+
+        byte[] input = raw.toByteArray();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 2 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            compressed.write(chunk, 0, n);
+        }
+        ByteBuffer block = ByteBuffer.wrap(compressed.toByteArray());
+        int compressedLength = block.remaining();
+        writeFully(block, position);
+
+        UUID accountId = pending.get(0).accountId();
+        index.add(new IndexEntry(accountId, position, compressedLength, input.length, count, minDate, maxDate));
+        writtenAccounts.add(accountId);
+        position += compressedLength;
+        pending.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer, long at) throws IOException {
+        long offset = at;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    private record IndexEntry(UUID accountId, long offset, int compressedLength, int rawLength,
+                              int rowCount, long minDate, long maxDate) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.SimpleBankAPI.archive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Cold transaction history stored as one segment file per shard and closed month
+ * ({@code transactions-<shard>-YYYY-MM.seg}), sorted and indexed by account.
+ * Segments written before sharding ({@code transactions-YYYY-MM.seg}) hold shard 0 and are renamed on startup.
+ */
+@Component
+public class TransactionArchive {
+    private static final String PREFIX = "transactions-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final Map<Integer, NavigableMap<YearMonth, SegmentReader>> segments = new ConcurrentHashMap<>();
+
+    public TransactionArchive(@Value("${bank.archive.dir:archive}") String directory) {
+        this.directory = Paths.get(directory);
+        try {
+            Files.createDirectories(this.directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String key = name.substring(PREFIX.length(), name.length() - SUFFIX.length());
+                    String[] parts = key.split("-");
+                    if (parts.length == 2) {
+                        YearMonth month = YearMonth.parse(key);
+                        Path renamed = this.directory.resolve(PREFIX + 0 + "-" + month + SUFFIX);
+                        Files.move(file, renamed, StandardCopyOption.ATOMIC_MOVE);
+                        shardSegments(0).put(month, new SegmentReader(renamed));
+                    } else {
+                        shardSegments(Integer.parseInt(parts[0]))
+                                .put(YearMonth.parse(parts[1] + "-" + parts[2]), new SegmentReader(file));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not open transaction archive in " + directory, e);
+        }
+    }
+
+    public boolean contains(int shard, YearMonth month) {
+        return shardSegments(shard).containsKey(month);
+    }
+
+    /**
+     * Archived rows of the account stored on the given shard with {@code from <= date <= to},
+     * oldest month first. Null bounds are open.
+     */
+    public List<ArchivedTransaction> find(int shard, UUID accountId, LocalDateTime from, LocalDateTime to) {
+        NavigableMap<YearMonth, SegmentReader> candidates = segments.get(shard);
+        if (candidates == null || candidates.isEmpty()) {
+            return List.of();
+        }
+        if (from != null) {
+            candidates = candidates.tailMap(YearMonth.from(from), true);
+        }
+        if (to != null) {
+            candidates = candidates.headMap(YearMonth.from(to), true);
+        }
+        List<ArchivedTransaction> result = new ArrayList<>();
+        for (SegmentReader reader : candidates.values()) {
+            result.addAll(reader.find(accountId, from, to));
+        }
+        return result;
+    }
+
+    /**
+     * Writes the month's rows to a new segment and publishes it, replacing any previous segment
+     * of the same month. Rows must be grouped by account and ordered by date.
+     *
+     * @return number of rows written
+     */
+    public long write(int shard, YearMonth month, Iterator<ArchivedTransaction> rows) {
+        String name = PREFIX + shard + "-" + month + SUFFIX;
+        Path target = directory.resolve(name);
+        Path temp = directory.resolve(name + ".tmp");
+        try {
+            long rowCount;
+            try (SegmentWriter writer = new SegmentWriter(temp)) {
+                while (rows.hasNext()) {
+                    writer.append(rows.next());
+                }
+                writer.finish();
+                rowCount = writer.getRowCount();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            shardSegments(shard).put(month, new SegmentReader(target));
+            return rowCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write archive segment for " + month, e);
+        }
+    }
+
+    private NavigableMap<YearMonth, SegmentReader> shardSegments(int shard) {
+        return segments.computeIfAbsent(shard, key -> new ConcurrentSkipListMap<>());
+    }
+}
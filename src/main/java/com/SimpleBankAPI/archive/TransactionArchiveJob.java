@@ -0,0 +1,152 @@
+package com.SimpleBankAPI.archive;
+
+import com.SimpleBankAPI.models.ArchivedMonth;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.repositories.ArchivedMonthRepository;
+import com.SimpleBankAPI.repositories.ArchivedTransactionRefRepository;
+import com.SimpleBankAPI.repositories.TransactionRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Moves closed months older than the hot window from the transactions table into the archive.
+ * Those months no longer receive writes, because new transactions are always dated now.
+ * The segment is written and published first and the rows are deleted afterwards, so a crash
+ * in between leaves the rows in both places until the next run rewrites the month.
+ * Readers de-duplicate by transaction id. The refs of the deleted rows are copied to
+ * {@code archived_transaction_refs} in the same database transaction, so retried requests are
+ * still recognised as duplicates; refs are kept as long as the archive. The month is recorded in
+ * {@code archived_months} in that transaction too, and readers fail on a recorded month whose
+ * segment they do not have, so {@code bank.archive.dir} must be storage shared by all nodes.
+ * <p>
+ * Each shard is archived by one node at a time: the run holds a PostgreSQL advisory lock on the shard,
+ * other nodes skip it. Other databases (H2 in tests) are not locked.
+ */
+@Component
+public class TransactionArchiveJob {
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiveJob.class);
+    // advisory lock key of the job, the same on every shard database
+    private static final long LOCK_KEY = 0x5452_4152_4348_4956L;
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRefRepository archivedTransactionRefRepository;
+    private final ArchivedMonthRepository archivedMonthRepository;
+    private final TransactionArchive transactionArchive;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate lockTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int hotDays;
+
+    public TransactionArchiveJob(TransactionRepository transactionRepository,
+                                 ArchivedTransactionRefRepository archivedTransactionRefRepository,
+                                 ArchivedMonthRepository archivedMonthRepository,
+                                 TransactionArchive transactionArchive,
+                                 ShardRouter shardRouter, PlatformTransactionManager transactionManager,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${bank.archive.hot-days:90}") int hotDays) {
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRefRepository = archivedTransactionRefRepository;
+        this.archivedMonthRepository = archivedMonthRepository;
+        this.transactionArchive = transactionArchive;
+        this.shardRouter = shardRouter;
+        // the lock is held by an outer transaction for the whole run, each month uses its own transactions
+        this.lockTemplate = new TransactionTemplate(transactionManager);
+        // not read-only: a read-only transaction may go to a replica, the rows must be read from the
+        // primary the range delete then removes them from
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotDays = hotDays;
+    }
+
+    @Scheduled(cron = "${bank.archive.cron:0 30 2 * * *}")
+    public void archiveClosedMonths() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int current = shard;
+            shardRouter.runOnShard(shard, () -> lockTemplate.executeWithoutResult(status -> {
+                if (tryLock()) {
+                    archiveShard(current);
+                } else {
+                    log.info("Archive of shard {} is running on another node, skipped", current);
+                }
+            }));
+        }
+    }
+
+    // transaction-scoped, released when the outer transaction ends or its connection is closed
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return true;
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_xact_lock(?)")) {
+                statement.setLong(1, LOCK_KEY);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() && resultSet.getBoolean(1);
+                }
+            }
+        }));
+    }
+
+    private void archiveShard(int shard) {
+        YearMonth firstHotMonth = YearMonth.from(LocalDate.now().minusDays(hotDays));
+        Optional<Transaction> oldest = transactionRepository.findFirstByOrderByDateAsc();
+        if (oldest.isEmpty()) {
+            return;
+        }
+        for (YearMonth month = YearMonth.from(oldest.get().getDate()); month.isBefore(firstHotMonth); month = month.plusMonths(1)) {
+            archiveMonth(shard, month);
+        }
+    }
+
+    // runs on the shard selected by the caller
+    private long archiveMonth(int shard, YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        Long written = readTemplate.execute(status -> {
+            try (Stream<ArchivedTransaction> rows = transactionRepository.streamForArchive(from, to)) {
+                Iterator<ArchivedTransaction> iterator = rows.iterator();
+                if (!iterator.hasNext()) {
+                    return 0L;
+                }
+                return transactionArchive.write(shard, month, iterator);
+            }
+        });
+        if (written == null || written == 0) {
+            return 0;
+        }
+        Integer deleted = writeTemplate.execute(status -> {
+            archivedTransactionRefRepository.copyFromTransactions(from, to);
+            ArchivedMonth archivedMonth = new ArchivedMonth();
+            archivedMonth.setMonthStart(month.atDay(1));
+            archivedMonth.setRowCount(written);
+            archivedMonth.setArchivedAt(LocalDateTime.now());
+            archivedMonthRepository.save(archivedMonth);
+            return transactionRepository.deleteArchived(from, to);
+        });
+        log.info("Archived {} transactions of {} on shard {}, deleted {} rows", written, month, shard, deleted);
+        return written;
+    }
+}
@@ -0,0 +1,22 @@
+package com.SimpleBankAPI.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Adds CBOR as an alternative body format, with the same Jackson settings as JSON.
+ * The bean takes the place of Spring's default CBOR converter, which comes after the JSON one,
+ * so JSON stays the default and CBOR is used when a client sends {@code Content-Type: application/cbor}
+ * or asks for it with {@code Accept: application/cbor}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build());
+    }
+}
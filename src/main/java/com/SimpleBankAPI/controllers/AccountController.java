@@ -1,15 +1,33 @@
 package com.SimpleBankAPI.controllers;
 
+import com.SimpleBankAPI.dtos.ActivitySummary;
+import com.SimpleBankAPI.dtos.BatchItemResult;
 import com.SimpleBankAPI.dtos.DepositRequest;
+import com.SimpleBankAPI.dtos.StandingOrderRequest;
 import com.SimpleBankAPI.dtos.TransferRequest;
 import com.SimpleBankAPI.dtos.WithdrawalRequest;
+import com.SimpleBankAPI.exceptions.GlobalExceptionHandler;
 import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.StandingOrder;
 import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.services.AccountActivityService;
 import com.SimpleBankAPI.services.AccountService;
+import com.SimpleBankAPI.services.StandingOrderService;
 import com.SimpleBankAPI.services.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,10 +36,23 @@ import java.util.UUID;
 public class AccountController {
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final AccountActivityService accountActivityService;
+    private final StandingOrderService standingOrderService;
+    private final GlobalExceptionHandler globalExceptionHandler;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
 
-    public AccountController(AccountService accountService, TransactionService transactionService) {
+    public AccountController(AccountService accountService, TransactionService transactionService,
+                             AccountActivityService accountActivityService, StandingOrderService standingOrderService,
+                             GlobalExceptionHandler globalExceptionHandler, ObjectMapper objectMapper,
+                             MappingJackson2CborHttpMessageConverter cborHttpMessageConverter) {
         this.accountService = accountService;
         this.transactionService = transactionService;
+        this.accountActivityService = accountActivityService;
+        this.standingOrderService = standingOrderService;
+        this.globalExceptionHandler = globalExceptionHandler;
+        this.objectMapper = objectMapper;
+        this.cborHttpMessageConverter = cborHttpMessageConverter;
     }
 
     //create account
@@ -57,15 +88,77 @@ public class AccountController {
         return ResponseEntity.ok().build();
   }
 
+    //deposit a batch of payments, every item gets its own result
+  @PostMapping("/{id}/deposit/batch")
+  public List<BatchItemResult> depositBatch(@PathVariable UUID id, @RequestBody List<DepositRequest> depositRequests){
+      List<BatchItemResult> results = new ArrayList<>();
+      for (DepositRequest depositRequest : depositRequests) {
+          results.add(batchItem(depositRequest == null ? null : depositRequest.getTransactionRef(),
+                  () -> transactionService.deposit(id, depositRequest)));
+      }
+      return results;
+  }
+
+    //transfer a batch of payments, every item gets its own result
+  @PostMapping("/transfer/batch")
+  public List<BatchItemResult> transferBatch(@RequestBody List<TransferRequest> transferRequests){
+      List<BatchItemResult> results = new ArrayList<>();
+      for (TransferRequest transferRequest : transferRequests) {
+          results.add(batchItem(transferRequest == null ? null : transferRequest.getTransactionRef(),
+                  () -> transactionService.transfer(transferRequest)));
+      }
+      return results;
+  }
+
+
+    //create a recurring transfer from the account
+  @PostMapping("/{id}/standing-orders")
+  public StandingOrder createStandingOrder(@PathVariable UUID id, @RequestBody StandingOrderRequest standingOrderRequest){
+      return standingOrderService.createStandingOrder(id, standingOrderRequest);
+  }
+
+    //standing orders of the account
+  @GetMapping("/{id}/standing-orders")
+  public List<StandingOrder> getStandingOrders(@PathVariable UUID id){
+      return standingOrderService.getStandingOrders(id);
+  }
 
-    //transactions history with filters by type and day
+    //cancel a standing order, occurrences already run are kept
+  @DeleteMapping("/{id}/standing-orders/{standingOrderId}")
+  public ResponseEntity<Void> cancelStandingOrder(@PathVariable UUID id, @PathVariable UUID standingOrderId){
+      standingOrderService.cancelStandingOrder(id, standingOrderId);
+      return ResponseEntity.noContent().build();
+  }
+
+    //transactions history with filters by type and day, written to the response row by row as JSON or CBOR
   @GetMapping("/{id}/history")
-  public List<Transaction> history(@PathVariable UUID id,
-                                      @RequestParam(required = false) LocalDateTime startDate,
-                                      @RequestParam(required = false) LocalDateTime finishDate ){
-      return transactionService.getTransactionsByIdAndDateBetween(id,startDate,finishDate);
+  public void history(@PathVariable UUID id,
+                      @RequestParam(required = false) LocalDateTime startDate,
+                      @RequestParam(required = false) LocalDateTime finishDate,
+                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                      HttpServletResponse response){
+      boolean cbor = prefersCbor(accept);
+      ObjectMapper mapper = cbor ? cborHttpMessageConverter.getObjectMapper() : objectMapper;
+      transactionService.streamTransactionsByIdAndDateBetween(id, startDate, finishDate, transactions -> {
+          response.setContentType(cbor ? MediaType.APPLICATION_CBOR_VALUE : MediaType.APPLICATION_JSON_VALUE);
+          try (SequenceWriter writer = mapper.writer().writeValuesAsArray(response.getOutputStream())) {
+              Iterator<Transaction> iterator = transactions.iterator();
+              while (iterator.hasNext()) {
+                  writer.write(iterator.next());
+              }
+          } catch (IOException e) {
+              throw new UncheckedIOException(e);
+          }
+      });
     }
 
+    //credit/debit totals per day or month
+  @GetMapping("/{id}/summary")
+  public List<ActivitySummary> summary(@PathVariable UUID id,
+                                       @RequestParam(defaultValue = "day") String granularity){
+      return accountActivityService.getSummary(id,granularity);
+  }
+
     //recalculate balance
   @PostMapping("/{id}/recalculation")
   public ResponseEntity<Void> recalculate(@PathVariable UUID id){
@@ -73,4 +166,31 @@ public class AccountController {
       return ResponseEntity.ok().build();
   }
 
+  // JSON unless CBOR is accepted before it
+  private static boolean prefersCbor(String accept){
+      if (accept == null || accept.isBlank()) {
+          return false;
+      }
+      for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+          if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+              return false;
+          }
+          if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)) {
+              return true;
+          }
+      }
+      return false;
+  }
+
+  // every failure becomes the item's result, items before it stay applied
+  private BatchItemResult batchItem(String transactionRef, Runnable operation){
+      try {
+          operation.run();
+          return new BatchItemResult(transactionRef, 200, null);
+      } catch (RuntimeException e) {
+          ResponseEntity<String> response = globalExceptionHandler.handle(e);
+          return new BatchItemResult(transactionRef, response.getStatusCode().value(), response.getBody());
+      }
+  }
+
 }
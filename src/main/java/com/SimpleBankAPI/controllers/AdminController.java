@@ -0,0 +1,40 @@
+package com.SimpleBankAPI.controllers;
+
+import com.SimpleBankAPI.diagnostics.HotAccountTracker;
+import com.SimpleBankAPI.diagnostics.HotAccountsReport;
+import com.SimpleBankAPI.sharding.ReplicaRoutingDataSource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+    private final HotAccountTracker hotAccountTracker;
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    public AdminController(HotAccountTracker hotAccountTracker, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        this.hotAccountTracker = hotAccountTracker;
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+    }
+
+    //most contended accounts, lock wait percentiles and sampled slow operations
+  @GetMapping("/hot-accounts")
+  public HotAccountsReport getHotAccounts(@RequestParam(defaultValue = "10") int limit){
+      return hotAccountTracker.report(Math.max(0, limit));
+  }
+
+    //start a new measurement period
+  @DeleteMapping("/hot-accounts")
+  public ResponseEntity<Void> resetHotAccounts(){
+      hotAccountTracker.reset();
+      return ResponseEntity.noContent().build();
+  }
+
+    //lag of each configured read replica and whether reads are currently sent to it
+  @GetMapping("/replicas")
+  public List<ReplicaRoutingDataSource.ReplicaStatus> getReplicas(){
+      return replicaRoutingDataSource.status();
+  }
+}
@@ -0,0 +1,21 @@
+package com.SimpleBankAPI.diagnostics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DiagnosticsConfig {
+
+    // statements pass through unchanged, they are only kept for the slow operation log
+    @Bean
+    public HibernatePropertiesCustomizer sqlCaptureCustomizer(HotAccountTracker hotAccountTracker) {
+        StatementInspector inspector = sql -> {
+            hotAccountTracker.captureSql(sql);
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+}
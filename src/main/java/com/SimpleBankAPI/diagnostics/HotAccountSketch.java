@@ -0,0 +1,83 @@
+package com.SimpleBankAPI.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Space-Saving heavy hitters over account ids: at most {@code capacity} accounts are tracked,
+ * a new account replaces the one with the lowest score and inherits that score as its error.
+ * Any account whose real score is above total / capacity is guaranteed to be tracked, and
+ * a tracked score overestimates the real one by at most its error.
+ * <p>
+ * Not thread-safe, {@link HotAccountTracker} guards it.
+ */
+final class HotAccountSketch {
+    private final int capacity;
+    private final Map<UUID, Counter> counters = new HashMap<>();
+
+    HotAccountSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    Counter add(UUID accountId, long weight) {
+        Counter counter = counters.get(accountId);
+        if (counter == null) {
+            long inherited = 0;
+            if (counters.size() >= capacity) {
+                Counter min = null;
+                for (Counter candidate : counters.values()) {
+                    if (min == null || candidate.score < min.score) {
+                        min = candidate;
+                    }
+                }
+                counters.remove(min.accountId);
+                inherited = min.score;
+            }
+            counter = new Counter(accountId, inherited);
+            counters.put(accountId, counter);
+        }
+        counter.score += weight;
+        return counter;
+    }
+
+    List<Counter> top(int limit) {
+        List<Counter> sorted = new ArrayList<>(counters.values());
+        sorted.sort(Comparator.comparingLong((Counter counter) -> counter.score).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    void clear() {
+        counters.clear();
+    }
+
+    /**
+     * Score and contention details of one tracked account, the details only cover the time since
+     * the account entered the sketch.
+     */
+    static final class Counter {
+        final UUID accountId;
+        final long error;
+        long score;
+        final LatencyHistogram lockWait = new LatencyHistogram();
+        final LatencyHistogram queueWait = new LatencyHistogram();
+        long retries;
+        long failedTransfers;
+
+        private Counter(UUID accountId, long error) {
+            this.accountId = accountId;
+            this.error = error;
+            this.score = error;
+        }
+    }
+}
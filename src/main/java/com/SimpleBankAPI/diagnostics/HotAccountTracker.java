@@ -0,0 +1,243 @@
+package com.SimpleBankAPI.diagnostics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory lock contention statistics, all of it bounded in size:
+ * <ul>
+ *     <li>wait-time histograms over all row lock ({@code findByIdForUpdate}) and in-process lock acquisitions</li>
+ *     <li>the most contended accounts, kept in a {@link HotAccountSketch}; only waits of at least
+ *     {@code min-wait-ms} and transfer retries feed it, so uncontended operations only touch the histograms</li>
+ *     <li>a log of the last slow operations, sampled, with the SQL they ran (captured through a Hibernate
+ *     statement inspector, see {@link DiagnosticsConfig})</li>
+ * </ul>
+ */
+@Component
+public class HotAccountTracker {
+    // a retry costs the 50 ms back-off of TransactionService on top of the wait that failed
+    static final long RETRY_WEIGHT_MICROS = 50_000;
+    static final int MAX_SQL_PER_OPERATION = 32;
+
+    private static final ThreadLocal<Operation> CURRENT = new ThreadLocal<>();
+
+    private final HotAccountSketch sketch;
+    private final long minWaitMicros;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int slowLogSize;
+    private final Deque<HotAccountsReport.SlowOperation> slowOperations = new ArrayDeque<>();
+    private volatile Totals totals = new Totals();
+
+    public HotAccountTracker(@Value("${bank.diagnostics.hot-accounts.capacity:128}") int capacity,
+                             @Value("${bank.diagnostics.hot-accounts.min-wait-ms:1}") long minWaitMillis,
+                             @Value("${bank.diagnostics.slow-ops.threshold-ms:200}") long slowThresholdMillis,
+                             @Value("${bank.diagnostics.slow-ops.sample-rate:0.25}") double sampleRate,
+                             @Value("${bank.diagnostics.slow-ops.size:50}") int slowLogSize) {
+        this.sketch = new HotAccountSketch(capacity);
+        this.minWaitMicros = TimeUnit.MILLISECONDS.toMicros(minWaitMillis);
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.sampleRate = sampleRate;
+        this.slowLogSize = slowLogSize;
+    }
+
+    /**
+     * Runs a row lock lookup and records how long it took for the account.
+     */
+    public <T> T timeLockWait(UUID accountId, Supplier<T> lookup) {
+        long start = System.nanoTime();
+        try {
+            return lookup.get();
+        } finally {
+            long waited = System.nanoTime() - start;
+            long micros = TimeUnit.NANOSECONDS.toMicros(waited);
+            totals.lockWait.record(micros);
+            addWait(waited);
+            if (micros >= minWaitMicros) {
+                synchronized (sketch) {
+                    sketch.add(accountId, micros).lockWait.record(micros);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the wait for in-process locks, shared by all accounts locked together.
+     */
+    public void recordQueueWait(long waitedNanos, UUID... accountIds) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(waitedNanos);
+        totals.queueWait.record(micros);
+        addWait(waitedNanos);
+        if (micros >= minWaitMicros) {
+            synchronized (sketch) {
+                for (UUID accountId : accountIds) {
+                    sketch.add(accountId, micros).queueWait.record(micros);
+                }
+            }
+        }
+    }
+
+    public void recordRetry(UUID... accountIds) {
+        totals.retries.incrementAndGet();
+        Operation operation = CURRENT.get();
+        if (operation != null) {
+            operation.retries++;
+        }
+        synchronized (sketch) {
+            for (UUID accountId : accountIds) {
+                sketch.add(accountId, RETRY_WEIGHT_MICROS).retries++;
+            }
+        }
+    }
+
+    public void recordFailedTransfer(UUID... accountIds) {
+        totals.failedTransfers.incrementAndGet();
+        synchronized (sketch) {
+            for (UUID accountId : accountIds) {
+                sketch.add(accountId, RETRY_WEIGHT_MICROS).failedTransfers++;
+            }
+        }
+    }
+
+    /**
+     * Runs an operation, and puts it in the slow operation log when it took longer than the threshold
+     * and is sampled. Nested calls are part of the outer operation.
+     */
+    public <T> T callTracked(String name, Supplier<T> action, UUID... accountIds) {
+        if (CURRENT.get() != null) {
+            return action.get();
+        }
+        Operation operation = new Operation(name, accountIds);
+        CURRENT.set(operation);
+        String outcome = "ok";
+        try {
+            return action.get();
+        } catch (RuntimeException | Error e) {
+            outcome = e.getClass().getSimpleName() + ": " + e.getMessage();
+            throw e;
+        } finally {
+            CURRENT.remove();
+            finish(operation, outcome);
+        }
+    }
+
+    public void runTracked(String name, Runnable action, UUID... accountIds) {
+        callTracked(name, () -> {
+            action.run();
+            return null;
+        }, accountIds);
+    }
+
+    /**
+     * Called for every statement Hibernate prepares; only keeps it while an operation is tracked on this thread.
+     */
+    void captureSql(String sql) {
+        Operation operation = CURRENT.get();
+        if (operation == null) {
+            return;
+        }
+        if (operation.sql.size() < MAX_SQL_PER_OPERATION) {
+            operation.sql.add(sql);
+        } else {
+            operation.sqlDropped++;
+        }
+    }
+
+    public HotAccountsReport report(int limit) {
+        Totals current = totals;
+        List<HotAccountsReport.HotAccount> accounts = new ArrayList<>();
+        synchronized (sketch) {
+            for (HotAccountSketch.Counter counter : sketch.top(limit)) {
+                accounts.add(new HotAccountsReport.HotAccount(counter.accountId, millis(counter.score),
+                        millis(counter.error), stats(counter.lockWait), stats(counter.queueWait),
+                        counter.retries, counter.failedTransfers));
+            }
+        }
+        List<HotAccountsReport.SlowOperation> slow;
+        synchronized (slowOperations) {
+            slow = new ArrayList<>(slowOperations);
+        }
+        return new HotAccountsReport(current.since, stats(current.lockWait), stats(current.queueWait),
+                current.retries.get(), current.failedTransfers.get(), accounts, slow);
+    }
+
+    public void reset() {
+        synchronized (sketch) {
+            sketch.clear();
+            totals = new Totals();
+        }
+        synchronized (slowOperations) {
+            slowOperations.clear();
+        }
+    }
+
+    private void addWait(long waitedNanos) {
+        Operation operation = CURRENT.get();
+        if (operation != null) {
+            operation.waitNanos += waitedNanos;
+        }
+    }
+
+    private void finish(Operation operation, String outcome) {
+        long duration = System.nanoTime() - operation.start;
+        if (duration < slowThresholdNanos || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        HotAccountsReport.SlowOperation slow = new HotAccountsReport.SlowOperation(operation.at, operation.name,
+                Arrays.asList(operation.accountIds), millis(TimeUnit.NANOSECONDS.toMicros(duration)),
+                millis(TimeUnit.NANOSECONDS.toMicros(operation.waitNanos)), operation.retries, outcome,
+                List.copyOf(operation.sql), operation.sqlDropped);
+        synchronized (slowOperations) {
+            if (slowOperations.size() >= slowLogSize) {
+                slowOperations.removeFirst();
+            }
+            slowOperations.addLast(slow);
+        }
+    }
+
+    private static HotAccountsReport.WaitStats stats(LatencyHistogram histogram) {
+        return new HotAccountsReport.WaitStats(histogram.count(), millis(histogram.percentileMicros(50)),
+                millis(histogram.percentileMicros(90)), millis(histogram.percentileMicros(99)),
+                millis(histogram.maxMicros()), millis(histogram.totalMicros()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Totals {
+        private final LocalDateTime since = LocalDateTime.now();
+        private final LatencyHistogram lockWait = new LatencyHistogram();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong failedTransfers = new AtomicLong();
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final UUID[] accountIds;
+        private final LocalDateTime at = LocalDateTime.now();
+        private final long start = System.nanoTime();
+        private final List<String> sql = new ArrayList<>();
+        private int sqlDropped;
+        private long waitNanos;
+        private int retries;
+
+        private Operation(String name, UUID[] accountIds) {
+            this.name = name;
+            this.accountIds = accountIds;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.SimpleBankAPI.diagnostics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response of {@code GET /admin/hot-accounts}. Durations are in milliseconds,
+ * percentiles are bucket upper bounds (see {@link LatencyHistogram}).
+ */
+public record HotAccountsReport(LocalDateTime since,
+                                WaitStats lockWait,
+                                WaitStats queueWait,
+                                long retries,
+                                long failedTransfers,
+                                List<HotAccount> accounts,
+                                List<SlowOperation> slowOperations) {
+
+    public record WaitStats(long count, double p50, double p90, double p99, double max, double total) {
+    }
+
+    /**
+     * {@code score} is the time lost to contention (waits plus retry back-offs); it may overestimate
+     * by at most {@code scoreError} for accounts that entered the sketch by replacing another one.
+     */
+    public record HotAccount(UUID accountId, double score, double scoreError, WaitStats lockWait,
+                             WaitStats queueWait, long retries, long failedTransfers) {
+    }
+
+    public record SlowOperation(LocalDateTime at, String operation, List<UUID> accountIds, double duration,
+                                double lockWait, int retries, String outcome, List<String> sql, int sqlDropped) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.SimpleBankAPI.dtos;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class ActivitySummary {
+    private LocalDate bucketStart;
+    private BigDecimal creditTotal;
+    private BigDecimal debitTotal;
+    private long creditCount;
+    private long debitCount;
+
+    public ActivitySummary() {
+    }
+
+    public ActivitySummary(LocalDate bucketStart, BigDecimal creditTotal, BigDecimal debitTotal,
+                           long creditCount, long debitCount) {
+        this.bucketStart = bucketStart;
+        this.creditTotal = creditTotal;
+        this.debitTotal = debitTotal;
+        this.creditCount = creditCount;
+        this.debitCount = debitCount;
+    }
+
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDate bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public BigDecimal getCreditTotal() {
+        return creditTotal;
+    }
+
+    public void setCreditTotal(BigDecimal creditTotal) {
+        this.creditTotal = creditTotal;
+    }
+
+    public BigDecimal getDebitTotal() {
+        return debitTotal;
+    }
+
+    public void setDebitTotal(BigDecimal debitTotal) {
+        this.debitTotal = debitTotal;
+    }
+
+    public long getCreditCount() {
+        return creditCount;
+    }
+
+    public void setCreditCount(long creditCount) {
+        this.creditCount = creditCount;
+    }
+
+    public long getDebitCount() {
+        return debitCount;
+    }
+
+    public void setDebitCount(long debitCount) {
+        this.debitCount = debitCount;
+    }
+}
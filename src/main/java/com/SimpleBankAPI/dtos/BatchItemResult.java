@@ -0,0 +1,40 @@
+package com.SimpleBankAPI.dtos;
+
+public class BatchItemResult {
+    private String transactionRef;
+    private int status;
+    private String message;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(String transactionRef, int status, String message) {
+        this.transactionRef = transactionRef;
+        this.status = status;
+        this.message = message;
+    }
+
+    public String getTransactionRef() {
+        return transactionRef;
+    }
+
+    public void setTransactionRef(String transactionRef) {
+        this.transactionRef = transactionRef;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
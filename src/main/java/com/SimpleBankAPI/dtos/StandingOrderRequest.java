@@ -0,0 +1,55 @@
+package com.SimpleBankAPI.dtos;
+
+import com.SimpleBankAPI.enums.StandingOrderFrequency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class StandingOrderRequest {
+    private UUID toId;
+    private BigDecimal amount;
+    private StandingOrderFrequency frequency;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public UUID getToId() {
+        return toId;
+    }
+
+    public void setToId(UUID toId) {
+        this.toId = toId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public StandingOrderFrequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(StandingOrderFrequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+}
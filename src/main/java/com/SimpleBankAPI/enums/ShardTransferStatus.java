@@ -0,0 +1,7 @@
+package com.SimpleBankAPI.enums;
+
+public enum ShardTransferStatus {
+    RESERVED,
+    COMMITTED,
+    COMPENSATED;
+}
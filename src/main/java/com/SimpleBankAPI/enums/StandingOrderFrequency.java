@@ -0,0 +1,22 @@
+package com.SimpleBankAPI.enums;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public enum StandingOrderFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * Occurrence after {@code current}. Monthly orders keep the day of month of {@code start},
+     * clamped to the length of shorter months, so the 31st does not drift to the 28th.
+     */
+    public LocalDate next(LocalDate start, LocalDate current) {
+        return switch (this) {
+            case DAILY -> current.plusDays(1);
+            case WEEKLY -> current.plusWeeks(1);
+            case MONTHLY -> start.plusMonths(ChronoUnit.MONTHS.between(start.withDayOfMonth(1), current.withDayOfMonth(1)) + 1);
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package com.SimpleBankAPI.enums;
+
+public enum StandingOrderStatus {
+    ACTIVE,
+    CANCELLED,
+    COMPLETED;
+}
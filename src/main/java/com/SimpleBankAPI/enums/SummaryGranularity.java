@@ -0,0 +1,14 @@
+package com.SimpleBankAPI.enums;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public enum SummaryGranularity {
+    DAY,
+    MONTH;
+
+    public LocalDate bucketOf(LocalDateTime date) {
+        LocalDate day = date.toLocalDate();
+        return this == MONTH ? day.withDayOfMonth(1) : day;
+    }
+}
@@ -0,0 +1,7 @@
+package com.SimpleBankAPI.exceptions;
+
+public class AccountLockTimeoutException extends RuntimeException{
+    public AccountLockTimeoutException(String message){
+        super(message);
+    }
+}
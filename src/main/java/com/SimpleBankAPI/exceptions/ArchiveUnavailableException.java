@@ -0,0 +1,7 @@
+package com.SimpleBankAPI.exceptions;
+
+public class ArchiveUnavailableException extends RuntimeException{
+    public ArchiveUnavailableException(String message){
+        super(message);
+    }
+}
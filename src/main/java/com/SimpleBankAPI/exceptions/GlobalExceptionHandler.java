@@ -1,36 +1,95 @@
 package com.SimpleBankAPI.exceptions;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+
+import java.lang.reflect.Method;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private static final ExceptionHandlerMethodResolver HANDLERS = new ExceptionHandlerMethodResolver(GlobalExceptionHandler.class);
+    // names the exception, so clients can tell failures with the same status and message apart
+    public static final String ERROR_CODE_HEADER = "X-Error-Code";
 
     @ExceptionHandler(AccountNotFoundException.class)
    public ResponseEntity<String> handleAccountNotFound (AccountNotFoundException e){
-        return ResponseEntity.status(404).body(e.getMessage());
+        return error(404, e);
 }
     @ExceptionHandler(InvalidAmountException.class)
     public ResponseEntity<String> handleInvalidAmount (InvalidAmountException e){
-        return ResponseEntity.status(400).body(e.getMessage());
+        return error(400, e);
     }
     @ExceptionHandler(LimitReachedException.class)
     public ResponseEntity<String> handleLimitReached (LimitReachedException e){
-        return ResponseEntity.status(400).body(e.getMessage());
+        return error(400, e);
     }
     @ExceptionHandler(NotEnoughMoneyException.class)
     public ResponseEntity<String> handleNotEnoughMoney(NotEnoughMoneyException e){
-        return ResponseEntity.status(400).body(e.getMessage());
+        return error(400, e);
     }
     @ExceptionHandler(TransactionRefDuplicationException.class)
     public ResponseEntity<String> handleTransactionRefDuplication(TransactionRefDuplicationException e){
-        return ResponseEntity.status(400).body(e.getMessage());
+        return error(400, e);
     }
 
     @ExceptionHandler(TransferFailedException.class)
     public ResponseEntity<String> handleTransferFailedException(TransferFailedException e){
-        return ResponseEntity.status(400).body(e.getMessage());
+        return error(400, e);
+    }
+
+    @ExceptionHandler(InvalidGranularityException.class)
+    public ResponseEntity<String> handleInvalidGranularity(InvalidGranularityException e){
+        return error(400, e);
+    }
+
+    @ExceptionHandler(AccountLockTimeoutException.class)
+    public ResponseEntity<String> handleAccountLockTimeout(AccountLockTimeoutException e){
+        return error(409, e);
+    }
+
+    @ExceptionHandler(StandingOrderNotFoundException.class)
+    public ResponseEntity<String> handleStandingOrderNotFound(StandingOrderNotFoundException e){
+        return error(404, e);
+    }
+
+    @ExceptionHandler(InvalidScheduleException.class)
+    public ResponseEntity<String> handleInvalidSchedule(InvalidScheduleException e){
+        return error(400, e);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handleInvalidRequest(InvalidRequestException e){
+        return error(400, e);
+    }
+
+    @ExceptionHandler(ArchiveUnavailableException.class)
+    public ResponseEntity<String> handleArchiveUnavailable(ArchiveUnavailableException e){
+        return error(503, e);
+    }
+
+    /**
+     * Response the matching {@code @ExceptionHandler} method above gives for the exception, used to report
+     * each failed item of a batch request. Exceptions no handler covers are reported as 500.
+     */
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<String> handle(RuntimeException e){
+        Method handler = HANDLERS.resolveMethod(e);
+        if (handler == null) {
+            log.error("Unexpected error in batch item", e);
+            return ResponseEntity.status(500).header(ERROR_CODE_HEADER, e.getClass().getSimpleName())
+                    .body("Unexpected error: " + e.getClass().getSimpleName());
+        }
+        return (ResponseEntity<String>) ReflectionUtils.invokeMethod(handler, this, e);
+    }
+
+    private static ResponseEntity<String> error(int status, RuntimeException e){
+        return ResponseEntity.status(status).header(ERROR_CODE_HEADER, e.getClass().getSimpleName()).body(e.getMessage());
     }
 
 }
@@ -0,0 +1,7 @@
+package com.SimpleBankAPI.exceptions;
+
+public class InvalidGranularityException extends RuntimeException{
+    public InvalidGranularityException(String message){
+        super(message);
+    }
+}
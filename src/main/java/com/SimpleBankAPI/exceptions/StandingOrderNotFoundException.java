@@ -0,0 +1,7 @@
+package com.SimpleBankAPI.exceptions;
+
+public class StandingOrderNotFoundException extends RuntimeException{
+    public StandingOrderNotFoundException(String message){
+        super(message);
+    }
+}
@@ -1,4 +1,5 @@
 package com.SimpleBankAPI.models;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
@@ -12,17 +13,28 @@ public class Account {
     @Version
     private Long version;
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
+    @JsonIgnore
     @OneToMany(mappedBy = "account")
     private List<Transaction> transactionList;
     private Long numberAccount;
     private String ownerAccount;
     private BigDecimal balance;
     private LocalDateTime createdAt;
+    // null while the activity summary may miss postings made before summaries were kept,
+    // see AccountActivityBackfillJob
+    @JsonIgnore
+    private LocalDateTime activityBackfilledAt;
     public Account() {
     }
 
+    @PrePersist
+    void assignId() {
+        if (id == null) {
+            id = UUID.randomUUID();
+        }
+    }
+
     public UUID getId() {
         return id;
     }
@@ -70,4 +82,12 @@ public class Account {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public LocalDateTime getActivityBackfilledAt() {
+        return activityBackfilledAt;
+    }
+
+    public void setActivityBackfilledAt(LocalDateTime activityBackfilledAt) {
+        this.activityBackfilledAt = activityBackfilledAt;
+    }
 }
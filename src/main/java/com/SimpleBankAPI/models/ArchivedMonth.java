@@ -0,0 +1,44 @@
+package com.SimpleBankAPI.models;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Month of the shard whose transactions were moved from the table into an archive segment.
+ * Every node must have the segment of each recorded month to read the full history.
+ */
+@Entity
+@Table(name = "archived_months")
+public class ArchivedMonth {
+    @Id
+    private LocalDate monthStart;
+    private long rowCount;
+    private LocalDateTime archivedAt;
+    public ArchivedMonth() {
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public void setMonthStart(LocalDate monthStart) {
+        this.monthStart = monthStart;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -0,0 +1,72 @@
+package com.SimpleBankAPI.models;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Ref of a transaction that was moved to the archive, kept in the database so the idempotency
+ * checks still find it. The id is the id of the archived transaction.
+ */
+@Entity
+@Table(name = "archived_transaction_refs", indexes = @Index(columnList = "transaction_ref"))
+public class ArchivedTransactionRef {
+    @Id
+    private UUID id;
+    private String transactionRef;
+    private UUID accountId;
+    private BigDecimal debit;
+    private BigDecimal credit;
+    private LocalDateTime date;
+    public ArchivedTransactionRef() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getTransactionRef() {
+        return transactionRef;
+    }
+
+    public void setTransactionRef(String transactionRef) {
+        this.transactionRef = transactionRef;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(UUID accountId) {
+        this.accountId = accountId;
+    }
+
+    public BigDecimal getDebit() {
+        return debit;
+    }
+
+    public void setDebit(BigDecimal debit) {
+        this.debit = debit;
+    }
+
+    public BigDecimal getCredit() {
+        return credit;
+    }
+
+    public void setCredit(BigDecimal credit) {
+        this.credit = credit;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+}
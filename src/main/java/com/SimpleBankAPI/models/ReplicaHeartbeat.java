@@ -0,0 +1,33 @@
+package com.SimpleBankAPI.models;
+import jakarta.persistence.*;
+
+/**
+ * Written on each shard primary by {@link com.SimpleBankAPI.sharding.ReplicaLagMonitor};
+ * the value its replica returns tells how far the replica has caught up.
+ */
+@Entity
+@Table(name = "replica_heartbeats")
+public class ReplicaHeartbeat {
+    @Id
+    private Integer shard;
+    // epoch millis
+    private Long beatAt;
+    public ReplicaHeartbeat() {
+    }
+
+    public Integer getShard() {
+        return shard;
+    }
+
+    public void setShard(Integer shard) {
+        this.shard = shard;
+    }
+
+    public Long getBeatAt() {
+        return beatAt;
+    }
+
+    public void setBeatAt(Long beatAt) {
+        this.beatAt = beatAt;
+    }
+}
@@ -0,0 +1,93 @@
+package com.SimpleBankAPI.models;
+import com.SimpleBankAPI.enums.ShardTransferStatus;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Durable state of a transfer between accounts on different shards, stored on the sender's shard.
+ */
+@Entity
+@Table(name = "shard_transfers")
+public class ShardTransfer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    @Column(unique = true)
+    private String transactionRef;
+    private UUID fromId;
+    private UUID toId;
+    private BigDecimal amount;
+    @Enumerated(EnumType.STRING)
+    private ShardTransferStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    public ShardTransfer() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getTransactionRef() {
+        return transactionRef;
+    }
+
+    public void setTransactionRef(String transactionRef) {
+        this.transactionRef = transactionRef;
+    }
+
+    public UUID getFromId() {
+        return fromId;
+    }
+
+    public void setFromId(UUID fromId) {
+        this.fromId = fromId;
+    }
+
+    public UUID getToId() {
+        return toId;
+    }
+
+    public void setToId(UUID toId) {
+        this.toId = toId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public ShardTransferStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ShardTransferStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,142 @@
+package com.SimpleBankAPI.models;
+import com.SimpleBankAPI.enums.StandingOrderFrequency;
+import com.SimpleBankAPI.enums.StandingOrderStatus;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Recurring transfer, stored on the sender's shard. {@code nextExecution} is the next occurrence
+ * still to run, {@code lastError} the reason the last occurrence was skipped, if it was.
+ */
+@Entity
+@Table(name = "standing_orders",
+        indexes = @Index(columnList = "status, next_execution, from_id"))
+public class StandingOrder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    private UUID fromId;
+    private UUID toId;
+    private BigDecimal amount;
+    @Enumerated(EnumType.STRING)
+    private StandingOrderFrequency frequency;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDate nextExecution;
+    private LocalDate lastExecution;
+    private String lastError;
+    @Enumerated(EnumType.STRING)
+    private StandingOrderStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    public StandingOrder() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getFromId() {
+        return fromId;
+    }
+
+    public void setFromId(UUID fromId) {
+        this.fromId = fromId;
+    }
+
+    public UUID getToId() {
+        return toId;
+    }
+
+    public void setToId(UUID toId) {
+        this.toId = toId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public StandingOrderFrequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(StandingOrderFrequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public LocalDate getNextExecution() {
+        return nextExecution;
+    }
+
+    public void setNextExecution(LocalDate nextExecution) {
+        this.nextExecution = nextExecution;
+    }
+
+    public LocalDate getLastExecution() {
+        return lastExecution;
+    }
+
+    public void setLastExecution(LocalDate lastExecution) {
+        this.lastExecution = lastExecution;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public StandingOrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(StandingOrderStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
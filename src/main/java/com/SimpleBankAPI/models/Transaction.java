@@ -16,6 +16,8 @@ public class Transaction {
     private LocalDateTime date;
     @ManyToOne
     private Account account;
+    // set on the credit of a transfer between shards, see CrossShardTransferService
+    private UUID shardTransferId;
     public Transaction(){
 
     }
@@ -60,6 +62,14 @@ public class Transaction {
         this.account = account;
     }
 
+    public UUID getShardTransferId() {
+        return shardTransferId;
+    }
+
+    public void setShardTransferId(UUID shardTransferId) {
+        this.shardTransferId = shardTransferId;
+    }
+
     public LocalDateTime getDate() {
         return date;
     }
@@ -0,0 +1,30 @@
+package com.SimpleBankAPI.repositories;
+
+import com.SimpleBankAPI.enums.SummaryGranularity;
+import com.SimpleBankAPI.models.AccountActivity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface AccountActivityRepository extends JpaRepository<AccountActivity, UUID> {
+    List<AccountActivity> findByAccountIdAndGranularityOrderByBucketStart(UUID accountId, SummaryGranularity granularity);
+
+    @Modifying
+    @Query("UPDATE AccountActivity a SET a.creditTotal = a.creditTotal + :credit, a.debitTotal = a.debitTotal + :debit, " +
+            "a.creditCount = a.creditCount + :creditCount, a.debitCount = a.debitCount + :debitCount " +
+            "WHERE a.accountId = :accountId AND a.granularity = :granularity AND a.bucketStart = :bucketStart")
+    int increment(@Param("accountId") UUID accountId, @Param("granularity") SummaryGranularity granularity,
+                  @Param("bucketStart") LocalDate bucketStart, @Param("credit") BigDecimal credit,
+                  @Param("debit") BigDecimal debit, @Param("creditCount") long creditCount,
+                  @Param("debitCount") long debitCount);
+
+    @Modifying
+    @Query("DELETE FROM AccountActivity a WHERE a.accountId = :accountId")
+    void deleteByAccountId(@Param("accountId") UUID accountId);
+}
@@ -2,10 +2,12 @@ package com.SimpleBankAPI.repositories;
 
 import com.SimpleBankAPI.models.Account;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,4 +16,8 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
     @Query("SELECT a FROM Account a WHERE a.id=:id")
     public Optional<Account> findByIdForUpdate(@Param("id") UUID id);
 
+    // accounts whose activity summary has not been rebuilt from their full history, ids after the given one
+    @Query("SELECT a.id FROM Account a WHERE a.activityBackfilledAt IS NULL AND a.id > :after ORDER BY a.id")
+    List<UUID> findActivityBackfillPending(@Param("after") UUID after, Pageable pageable);
+
 }
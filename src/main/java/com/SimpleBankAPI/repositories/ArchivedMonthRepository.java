@@ -0,0 +1,9 @@
+package com.SimpleBankAPI.repositories;
+
+import com.SimpleBankAPI.models.ArchivedMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+
+public interface ArchivedMonthRepository extends JpaRepository<ArchivedMonth, LocalDate> {
+}
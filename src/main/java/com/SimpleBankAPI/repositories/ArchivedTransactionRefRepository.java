@@ -0,0 +1,24 @@
+package com.SimpleBankAPI.repositories;
+
+import com.SimpleBankAPI.models.ArchivedTransactionRef;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ArchivedTransactionRefRepository extends JpaRepository<ArchivedTransactionRef, UUID> {
+    List<ArchivedTransactionRef> findByTransactionRef(String transactionRef);
+    List<ArchivedTransactionRef> findByTransactionRefIn(Collection<String> transactionRefs);
+
+    // same range as TransactionRepository.deleteArchived, run in the same transaction before it
+    @Modifying
+    @Query("INSERT INTO ArchivedTransactionRef (id, transactionRef, accountId, debit, credit, date) " +
+            "SELECT t.id, t.transactionRef, t.account.id, t.debit, t.credit, t.date FROM Transaction t " +
+            "WHERE t.date >= :from AND t.date < :to AND t.account IS NOT NULL AND t.transactionRef IS NOT NULL")
+    int copyFromTransactions(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,24 @@
+package com.SimpleBankAPI.repositories;
+
+import com.SimpleBankAPI.enums.ShardTransferStatus;
+import com.SimpleBankAPI.models.ShardTransfer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ShardTransferRepository extends JpaRepository<ShardTransfer, UUID> {
+    Optional<ShardTransfer> findByTransactionRef(String transactionRef);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM ShardTransfer t WHERE t.transactionRef = :transactionRef")
+    Optional<ShardTransfer> findByTransactionRefForUpdate(@Param("transactionRef") String transactionRef);
+
+    List<ShardTransfer> findTop100ByStatusAndUpdatedAtBeforeOrderByUpdatedAt(ShardTransferStatus status, LocalDateTime before);
+}
@@ -0,0 +1,33 @@
+package com.SimpleBankAPI.repositories;
+
+import com.SimpleBankAPI.models.StandingOrder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface StandingOrderRepository extends JpaRepository<StandingOrder, UUID> {
+    List<StandingOrder> findByFromIdOrderByCreatedAt(UUID fromId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM StandingOrder o WHERE o.id = :id")
+    Optional<StandingOrder> findByIdForUpdate(@Param("id") UUID id);
+
+    // due orders sorted by sender, read page by page with the last (fromId, id) seen
+    @Query("SELECT o FROM StandingOrder o WHERE o.status = com.SimpleBankAPI.enums.StandingOrderStatus.ACTIVE " +
+            "AND o.nextExecution <= :date ORDER BY o.fromId, o.id")
+    List<StandingOrder> findDue(@Param("date") LocalDate date, Pageable pageable);
+
+    @Query("SELECT o FROM StandingOrder o WHERE o.status = com.SimpleBankAPI.enums.StandingOrderStatus.ACTIVE " +
+            "AND o.nextExecution <= :date AND (o.fromId > :fromId OR (o.fromId = :fromId AND o.id > :id)) " +
+            "ORDER BY o.fromId, o.id")
+    List<StandingOrder> findDueAfter(@Param("date") LocalDate date, @Param("fromId") UUID fromId,
+                                     @Param("id") UUID id, Pageable pageable);
+}
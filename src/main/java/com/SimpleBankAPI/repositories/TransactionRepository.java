@@ -1,17 +1,43 @@
 package com.SimpleBankAPI.repositories;
 
+import com.SimpleBankAPI.archive.ArchivedTransaction;
 import com.SimpleBankAPI.enums.TransactionName;
 import com.SimpleBankAPI.models.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
     List<Transaction> findByAccountIdAndDateBetween(UUID accountId, LocalDateTime from, LocalDateTime to);
 
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Transaction> streamByAccountIdAndDateBetween(UUID accountId, LocalDateTime from, LocalDateTime to);
+
     List<Transaction> findByAccountId(UUID accountId);
     List<Transaction> findByTransactionRef(String transactionRef);
+    List<Transaction> findByTransactionRefIn(Collection<String> transactionRefs);
+    boolean existsByAccountIdAndShardTransferId(UUID accountId, UUID shardTransferId);
+
+    Optional<Transaction> findFirstByOrderByDateAsc();
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.SimpleBankAPI.archive.ArchivedTransaction(t.id, t.account.id, t.transactionRef, t.debit, t.credit, t.date) " +
+            "FROM Transaction t WHERE t.date >= :from AND t.date < :to ORDER BY t.account.id, t.date")
+    Stream<ArchivedTransaction> streamForArchive(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.date >= :from AND t.date < :to AND t.account IS NOT NULL")
+    int deleteArchived(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
 }
@@ -0,0 +1,84 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Catches up the activity summary of accounts that had postings before summaries were kept: the rows
+ * only count postings made since, so each such account is rebuilt once from its full history
+ * (archive included) by {@link TransactionService#backfillActivity}, under the account locks so
+ * concurrent postings are not lost. Accounts are marked when done; new accounts are created marked.
+ * <p>
+ * The job runs on every node, an account rebuilt by another node is skipped under its lock. An account
+ * that fails (for example an unreadable archived month) stays unmarked and is retried on the next run.
+ * Once every account is marked, a run is one empty query per shard.
+ */
+@Component
+public class AccountActivityBackfillJob {
+    private static final Logger log = LoggerFactory.getLogger(AccountActivityBackfillJob.class);
+    // lowest UUID in database order, the start of the first page
+    private static final UUID FIRST = new UUID(0, 0);
+
+    private final TransactionService transactionService;
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public AccountActivityBackfillJob(TransactionService transactionService, AccountRepository accountRepository,
+                                      ShardRouter shardRouter,
+                                      @Value("${bank.activity-backfill.enabled:true}") boolean enabled,
+                                      @Value("${bank.activity-backfill.batch-size:500}") int batchSize) {
+        this.transactionService = transactionService;
+        this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${bank.activity-backfill.delay-ms:60000}",
+            fixedDelayString = "${bank.activity-backfill.delay-ms:60000}")
+    public void run() {
+        if (enabled) {
+            backfillPending();
+        }
+    }
+
+    // returns the number of accounts rebuilt by this run
+    int backfillPending() {
+        int rebuilt = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int current = shard;
+            UUID after = FIRST;
+            List<UUID> page;
+            do {
+                UUID from = after;
+                page = shardRouter.callOnShard(current,
+                        () -> accountRepository.findActivityBackfillPending(from, PageRequest.of(0, batchSize)));
+                for (UUID id : page) {
+                    try {
+                        if (transactionService.backfillActivity(id)) {
+                            rebuilt++;
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("Activity backfill of account {} failed, retried on the next run: {}", id, e.toString());
+                    }
+                    after = id;
+                }
+            } while (page.size() == batchSize);
+        }
+        if (rebuilt > 0) {
+            log.info("Rebuilt the activity summary of {} accounts", rebuilt);
+        }
+        return rebuilt;
+    }
+}
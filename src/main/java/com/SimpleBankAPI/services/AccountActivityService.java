@@ -0,0 +1,182 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.dtos.ActivitySummary;
+import com.SimpleBankAPI.enums.SummaryGranularity;
+import com.SimpleBankAPI.exceptions.AccountNotFoundException;
+import com.SimpleBankAPI.exceptions.InvalidGranularityException;
+import com.SimpleBankAPI.models.AccountActivity;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.repositories.AccountActivityRepository;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Keeps per-account credit/debit totals by day and by month, updated in the same
+ * database transaction that posts the {@link Transaction}.
+ */
+@Service
+public class AccountActivityService {
+    private static final String INSERT_BUCKET = "INSERT INTO account_activity (id, account_id, granularity, bucket_start, " +
+            "credit_total, debit_total, credit_count, debit_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final AccountActivityRepository accountActivityRepository;
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+
+    // the JdbcTemplate runs on the connection of the current JPA transaction
+    public AccountActivityService(AccountActivityRepository accountActivityRepository, AccountRepository accountRepository,
+                                  ShardRouter shardRouter, JdbcTemplate jdbcTemplate) {
+        this.accountActivityRepository = accountActivityRepository;
+        this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void record(Transaction transaction){
+        recordAll(List.of(transaction));
+    }
+
+    /**
+     * Same as {@link #record} for several transactions, with one update per summary row they touch.
+     */
+    @Transactional
+    public void recordAll(List<Transaction> transactions){
+        for (SummaryGranularity granularity : SummaryGranularity.values()) {
+            Map<BucketKey, AccountActivity> buckets = new LinkedHashMap<>();
+            for (Transaction transaction : transactions) {
+                UUID accountId = transaction.getAccount().getId();
+                LocalDate bucket = granularity.bucketOf(transaction.getDate());
+                AccountActivity activity = buckets.computeIfAbsent(new BucketKey(accountId, bucket),
+                        key -> newBucket(accountId, granularity, bucket, BigDecimal.ZERO, BigDecimal.ZERO, 0, 0));
+                add(activity, transaction);
+            }
+            for (AccountActivity activity : buckets.values()) {
+                if (increment(activity) == 0) {
+                    insertOrIncrement(activity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces all summary rows of the account with totals computed from the given full history.
+     */
+    @Transactional
+    public void rebuild(UUID accountId, List<Transaction> transactions){
+        accountActivityRepository.deleteByAccountId(accountId);
+        for (SummaryGranularity granularity : SummaryGranularity.values()) {
+            Map<LocalDate, AccountActivity> buckets = new TreeMap<>();
+            for (Transaction transaction : transactions) {
+                AccountActivity activity = buckets.computeIfAbsent(granularity.bucketOf(transaction.getDate()),
+                        bucket -> newBucket(accountId, granularity, bucket, BigDecimal.ZERO, BigDecimal.ZERO, 0, 0));
+                add(activity, transaction);
+            }
+            accountActivityRepository.saveAll(buckets.values());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<ActivitySummary> getSummary(UUID accountId, String granularity){
+        SummaryGranularity summaryGranularity;
+        try {
+            summaryGranularity = SummaryGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidGranularityException("Granularity should be day or month");
+        }
+        return shardRouter.callForAccount(accountId, () -> {
+            if (!accountRepository.existsById(accountId)) {
+                throw new AccountNotFoundException("Account does not exist");
+            }
+            return accountActivityRepository.findByAccountIdAndGranularityOrderByBucketStart(accountId, summaryGranularity)
+                    .stream()
+                    .map(activity -> new ActivitySummary(activity.getBucketStart(), activity.getCreditTotal(),
+                            activity.getDebitTotal(), activity.getCreditCount(), activity.getDebitCount()))
+                    .toList();
+        });
+    }
+
+    private int increment(AccountActivity activity){
+        return accountActivityRepository.increment(activity.getAccountId(), activity.getGranularity(), activity.getBucketStart(),
+                activity.getCreditTotal(), activity.getDebitTotal(), activity.getCreditCount(), activity.getDebitCount());
+    }
+
+    /**
+     * Inserts the first row of a bucket. Another node may have inserted it since the update found nothing,
+     * then the insert is rolled back to a savepoint and the row is updated instead, so the posting
+     * transaction is not aborted by the unique constraint (PostgreSQL aborts the whole transaction
+     * on a failed statement without savepoint).
+     */
+    void insertOrIncrement(AccountActivity activity){
+        boolean inserted = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_BUCKET)) {
+                insert.setObject(1, UUID.randomUUID());
+                insert.setObject(2, activity.getAccountId());
+                insert.setString(3, activity.getGranularity().name());
+                insert.setObject(4, activity.getBucketStart());
+                insert.setBigDecimal(5, activity.getCreditTotal());
+                insert.setBigDecimal(6, activity.getDebitTotal());
+                insert.setLong(7, activity.getCreditCount());
+                insert.setLong(8, activity.getDebitCount());
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                return false;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        }));
+        if (!inserted) {
+            increment(activity);
+        }
+    }
+
+    private void add(AccountActivity activity, Transaction transaction){
+        if (transaction.getCredit() != null) {
+            activity.setCreditTotal(activity.getCreditTotal().add(transaction.getCredit()));
+            activity.setCreditCount(activity.getCreditCount() + 1);
+        }
+        if (transaction.getDebit() != null) {
+            activity.setDebitTotal(activity.getDebitTotal().add(transaction.getDebit()));
+            activity.setDebitCount(activity.getDebitCount() + 1);
+        }
+    }
+
+    private AccountActivity newBucket(UUID accountId, SummaryGranularity granularity, LocalDate bucket,
+                                      BigDecimal credit, BigDecimal debit, long creditCount, long debitCount){
+        AccountActivity activity = new AccountActivity();
+        activity.setAccountId(accountId);
+        activity.setGranularity(granularity);
+        activity.setBucketStart(bucket);
+        activity.setCreditTotal(credit);
+        activity.setDebitTotal(debit);
+        activity.setCreditCount(creditCount);
+        activity.setDebitCount(debitCount);
+        return activity;
+    }
+
+    private record BucketKey(UUID accountId, LocalDate bucketStart) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.diagnostics.HotAccountTracker;
+import com.SimpleBankAPI.exceptions.AccountLockTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process lock manager keyed by account id.
+ * Operations on the same account on this node queue here instead of holding a pooled
+ * connection while they wait for the row lock in the database.
+ * Database locks are still taken and protect against other nodes.
+ */
+@Component
+public class AccountLockManager {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutNanos;
+    private final HotAccountTracker hotAccountTracker;
+
+    public AccountLockManager(@Value("${bank.locks.stripes:1024}") int stripeCount,
+                              @Value("${bank.locks.timeout-ms:5000}") long timeoutMillis,
+                              HotAccountTracker hotAccountTracker) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.hotAccountTracker = hotAccountTracker;
+    }
+
+    /**
+     * Runs the action while holding the locks of all given accounts.
+     * Stripes are always taken in ascending index order, so two callers locking
+     * the same accounts in a different order can not deadlock.
+     */
+    public <T> T callWithLocks(Supplier<T> action, UUID... accountIds) {
+        int[] indexes = Arrays.stream(accountIds)
+                .map(Objects::requireNonNull)
+                .mapToInt(this::stripeIndex)
+                .sorted()
+                .distinct()
+                .toArray();
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                if (!stripes[index].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    hotAccountTracker.recordQueueWait(System.nanoTime() - start, accountIds);
+                    throw new AccountLockTimeoutException("Account is busy, try again later");
+                }
+                acquired++;
+            }
+            hotAccountTracker.recordQueueWait(System.nanoTime() - start, accountIds);
+            return action.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountLockTimeoutException("Interrupted while waiting for account lock");
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    public void runWithLocks(Runnable action, UUID... accountIds) {
+        callWithLocks(() -> {
+            action.run();
+            return null;
+        }, accountIds);
+    }
+
+    int stripeIndex(UUID accountId) {
+        long bits = accountId.getMostSignificantBits() ^ accountId.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> 32));
+        hash ^= hash >>> 16;
+        return hash & mask;
+    }
+}
@@ -2,21 +2,29 @@ package com.SimpleBankAPI.services;
 
 import com.SimpleBankAPI.models.Account;
 import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Service
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
 
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(AccountRepository accountRepository, ShardRouter shardRouter) {
         this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
     }
 
+    // the id is assigned here because it decides which shard stores the account;
+    // a new account has no earlier postings, its summary is complete from the start
     public Account createAccount(Account account){
+        account.setId(UUID.randomUUID());
         account.setCreatedAt(LocalDateTime.now());
-        return accountRepository.save(account);
+        account.setActivityBackfilledAt(account.getCreatedAt());
+        return shardRouter.callForAccount(account.getId(), () -> accountRepository.save(account));
     }
 
 }
@@ -0,0 +1,235 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.diagnostics.HotAccountTracker;
+import com.SimpleBankAPI.dtos.TransferRequest;
+import com.SimpleBankAPI.enums.ShardTransferStatus;
+import com.SimpleBankAPI.exceptions.*;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.ShardTransfer;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.repositories.ShardTransferRepository;
+import com.SimpleBankAPI.repositories.TransactionRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Transfers between accounts that live on different shards, in two local transactions keyed by transactionRef:
+ * <ol>
+ *     <li>reserve: on the sender's shard, debit the sender and store a RESERVED {@link ShardTransfer}</li>
+ *     <li>commit: credit the receiver on its shard (skipped if already credited), then mark the transfer COMMITTED</li>
+ * </ol>
+ * If the receiver disappears the debit is compensated with a credit to the sender and the transfer is COMPENSATED.
+ * Transfers left RESERVED by a failure are driven forward by {@link #resumeReserved()} or by a retry with the same ref.
+ * A new transfer is rejected if its ref is already used on either shard.
+ */
+@Service
+public class CrossShardTransferService {
+    private static final Logger log = LoggerFactory.getLogger(CrossShardTransferService.class);
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final ShardTransferRepository shardTransferRepository;
+    private final TransactionRefLookup transactionRefLookup;
+    private final AccountActivityService accountActivityService;
+    private final AccountLockManager accountLockManager;
+    private final ShardRouter shardRouter;
+    private final HotAccountTracker hotAccountTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate reserveTransactionTemplate;
+    private final long recoveryDelayMs;
+
+    public CrossShardTransferService(TransactionRepository transactionRepository, AccountRepository accountRepository,
+                                     ShardTransferRepository shardTransferRepository, TransactionRefLookup transactionRefLookup,
+                                     AccountActivityService accountActivityService,
+                                     AccountLockManager accountLockManager, ShardRouter shardRouter,
+                                     HotAccountTracker hotAccountTracker,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${bank.sharding.recovery-delay-ms:30000}") long recoveryDelayMs) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.shardTransferRepository = shardTransferRepository;
+        this.transactionRefLookup = transactionRefLookup;
+        this.accountActivityService = accountActivityService;
+        this.accountLockManager = accountLockManager;
+        this.shardRouter = shardRouter;
+        this.hotAccountTracker = hotAccountTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reserveTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.reserveTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.recoveryDelayMs = recoveryDelayMs;
+    }
+
+    /**
+     * The caller holds the in-memory locks of both accounts.
+     */
+    public void transfer(TransferRequest transferRequest){
+        if (transferRequest.getAmount() == null || transferRequest.getAmount().signum() <= 0) {
+            throw new InvalidAmountException("Amount must be positive");
+        }
+        UUID toId = transferRequest.getToId();
+        // inside a read-write transaction, as a bare repository read may be answered by a lagging replica
+        boolean refUsedByReceiverShard = shardRouter.callForAccount(toId, () -> transactionTemplate.execute(status -> {
+            if (!accountRepository.existsById(toId)) {
+                throw new AccountNotFoundException("Account does not exist");
+            }
+            return !transactionRefLookup.findByTransactionRef(transferRequest.getTransactionRef()).isEmpty();
+        }));
+        ShardTransfer shardTransfer = shardRouter.callForAccount(transferRequest.getFromId(),
+                () -> reserveTransactionTemplate.execute(status -> reserve(transferRequest, refUsedByReceiverShard)));
+        if (shardTransfer != null) {
+            complete(shardTransfer);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.sharding.recovery-delay-ms:30000}",
+            initialDelayString = "${bank.sharding.recovery-delay-ms:30000}")
+    public void resumeReserved(){
+        if (shardRouter.getShardCount() < 2) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusNanos(recoveryDelayMs * 1_000_000);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            List<ShardTransfer> reserved = shardRouter.callOnShard(shard,
+                    () -> shardTransferRepository.findTop100ByStatusAndUpdatedAtBeforeOrderByUpdatedAt(ShardTransferStatus.RESERVED, before));
+            for (ShardTransfer shardTransfer : reserved) {
+                try {
+                    accountLockManager.runWithLocks(() -> complete(shardTransfer),
+                            shardTransfer.getFromId(), shardTransfer.getToId());
+                } catch (RuntimeException e) {
+                    log.warn("Could not resume transfer {}", shardTransfer.getTransactionRef(), e);
+                }
+            }
+        }
+    }
+
+    // a ref already used on the receiver's shard is only accepted for a retry of the same transfer
+    private ShardTransfer reserve(TransferRequest transferRequest, boolean refUsedByReceiverShard){
+        BigDecimal amount = transferRequest.getAmount();
+        UUID fromId = transferRequest.getFromId();
+        UUID toId = transferRequest.getToId();
+        String transactionRef = transferRequest.getTransactionRef();
+        Account accountFrom = lockAccount(fromId)
+                .orElseThrow(() -> new AccountNotFoundException("Account does not exist"));
+        if (amount.compareTo(BigDecimal.valueOf(5000)) > 0){
+            throw new LimitReachedException("Transfer can be up to 5000");
+        }
+        Optional<ShardTransfer> existing = shardTransferRepository.findByTransactionRef(transactionRef);
+        if (existing.isPresent()) {
+            if (!existing.get().getFromId().equals(fromId) || !existing.get().getToId().equals(toId)) {
+                throw new TransactionRefDuplicationException("TransactionRef should be unique");
+            }
+            return existing.get();
+        }
+        if (refUsedByReceiverShard) {
+            throw new TransactionRefDuplicationException("TransactionRef should be unique");
+        }
+        List<Transaction> transactionList = transactionRefLookup.findByTransactionRef(transactionRef);
+        if (!transactionList.isEmpty()) {
+            for (Transaction tr : transactionList) {
+                if (!tr.getAccount().getId().equals(fromId)) {
+                    throw new TransactionRefDuplicationException("TransactionRef should be unique");
+                }
+            }
+            return null;
+        }
+        if (accountFrom.getBalance().compareTo(amount) < 0) {
+            throw new NotEnoughMoneyException("Not enough money on balance");
+        }
+        List<Transaction> transactions = transactionRepository.findByAccountIdAndDateBetween(fromId,
+                LocalDate.now().atStartOfDay(), LocalDate.now().plusDays(1).atStartOfDay());
+        BigDecimal sum = transactions.stream().map(Transaction::getDebit).filter(Objects::nonNull).reduce(BigDecimal.ZERO,BigDecimal::add);
+        if (sum.add(amount).compareTo(BigDecimal.valueOf(5000)) > 0){
+            throw new LimitReachedException("Day limit reached 5000, transaction can not continue");
+        }
+        post(accountFrom, transactionRef, amount, null, null);
+
+        ShardTransfer shardTransfer = new ShardTransfer();
+        shardTransfer.setTransactionRef(transactionRef);
+        shardTransfer.setFromId(fromId);
+        shardTransfer.setToId(toId);
+        shardTransfer.setAmount(amount);
+        shardTransfer.setStatus(ShardTransferStatus.RESERVED);
+        shardTransfer.setCreatedAt(LocalDateTime.now());
+        shardTransfer.setUpdatedAt(shardTransfer.getCreatedAt());
+        return shardTransferRepository.save(shardTransfer);
+    }
+
+    private void complete(ShardTransfer shardTransfer){
+        if (shardTransfer.getStatus() != ShardTransferStatus.RESERVED) {
+            return;
+        }
+        try {
+            shardRouter.runForAccount(shardTransfer.getToId(),
+                    () -> transactionTemplate.executeWithoutResult(status -> credit(shardTransfer)));
+        } catch (AccountNotFoundException e) {
+            shardRouter.runForAccount(shardTransfer.getFromId(), () -> transactionTemplate.executeWithoutResult(
+                    status -> finish(shardTransfer.getTransactionRef(), ShardTransferStatus.COMPENSATED)));
+            throw e;
+        }
+        shardRouter.runForAccount(shardTransfer.getFromId(), () -> transactionTemplate.executeWithoutResult(
+                status -> finish(shardTransfer.getTransactionRef(), ShardTransferStatus.COMMITTED)));
+    }
+
+    // the credit row carries the id of the shard transfer, other postings with the same ref do not count
+    private void credit(ShardTransfer shardTransfer){
+        Account accountTo = lockAccount(shardTransfer.getToId())
+                .orElseThrow(() -> new AccountNotFoundException("Account does not exist"));
+        if (transactionRepository.existsByAccountIdAndShardTransferId(accountTo.getId(), shardTransfer.getId())) {
+            return;
+        }
+        // credits posted by earlier versions have no id; theirs is the only credit with the ref made after the reservation
+        for (Transaction tr : transactionRepository.findByTransactionRef(shardTransfer.getTransactionRef())) {
+            if (tr.getAccount().getId().equals(accountTo.getId()) && tr.getCredit() != null && tr.getShardTransferId() == null
+                    && !tr.getDate().isBefore(shardTransfer.getCreatedAt())) {
+                return;
+            }
+        }
+        post(accountTo, shardTransfer.getTransactionRef(), null, shardTransfer.getAmount(), shardTransfer.getId());
+    }
+
+    private void finish(String transactionRef, ShardTransferStatus status){
+        ShardTransfer shardTransfer = shardTransferRepository.findByTransactionRefForUpdate(transactionRef).orElseThrow();
+        if (shardTransfer.getStatus() != ShardTransferStatus.RESERVED) {
+            return;
+        }
+        if (status == ShardTransferStatus.COMPENSATED) {
+            Account accountFrom = lockAccount(shardTransfer.getFromId()).orElseThrow();
+            post(accountFrom, transactionRef, null, shardTransfer.getAmount(), null);
+        }
+        shardTransfer.setStatus(status);
+        shardTransfer.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private Optional<Account> lockAccount(UUID id){
+        return hotAccountTracker.timeLockWait(id, () -> accountRepository.findByIdForUpdate(id));
+    }
+
+    private void post(Account account, String transactionRef, BigDecimal debit, BigDecimal credit, UUID shardTransferId){
+        Transaction transaction = new Transaction();
+        transaction.setShardTransferId(shardTransferId);
+        transaction.setDate(LocalDateTime.now());
+        transaction.setAccount(account);
+        transaction.setTransactionRef(transactionRef);
+        transaction.setDebit(debit);
+        transaction.setCredit(credit);
+        account.setBalance(debit != null ? account.getBalance().subtract(debit) : account.getBalance().add(credit));
+        transactionRepository.save(transaction);
+        accountActivityService.record(transaction);
+    }
+}
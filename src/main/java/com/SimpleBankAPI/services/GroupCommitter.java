@@ -0,0 +1,164 @@
+package com.SimpleBankAPI.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Group commit: requests submitted concurrently for the same key are collected for a short window,
+ * or until {@code maxItems} are queued, and handed to one {@link Executor} call. The first caller of a
+ * group runs the executor, the others wait for their own result. The first caller only waits for the
+ * window while an earlier group of the same key is still executing, it would wait for that group's
+ * locks anyway; an uncontended request runs right away as a group of one.
+ * <p>
+ * Results are published only after the executor returns, so callers never see the result of a
+ * database transaction that did not commit. If the executor throws, every item of the group fails
+ * with that exception.
+ */
+class GroupCommitter<K, T, R> {
+    private final long windowNanos;
+    private final int maxItems;
+    private final Executor<K, T, R> executor;
+    private final Map<K, Group<T, R>> openGroups = new ConcurrentHashMap<>();
+    // number of groups currently executing per key
+    private final Map<K, Integer> executing = new ConcurrentHashMap<>();
+    private final AtomicLong executedGroups = new AtomicLong();
+    private final AtomicLong executedItems = new AtomicLong();
+
+    GroupCommitter(long windowNanos, int maxItems, Executor<K, T, R> executor) {
+        if (maxItems < 1) {
+            throw new IllegalArgumentException("maxItems must be positive");
+        }
+        this.windowNanos = windowNanos;
+        this.maxItems = maxItems;
+        this.executor = executor;
+    }
+
+    R submit(K key, T request) {
+        Item<T, R> item = new Item<>(request);
+        AtomicReference<Group<T, R>> joined = new AtomicReference<>();
+        openGroups.compute(key, (k, group) -> {
+            if (group == null) {
+                group = new Group<>(item);
+            }
+            group.items.add(item);
+            joined.set(group);
+            if (group.items.size() >= maxItems) {
+                // a full group is closed here, the next caller starts a new one
+                group.full.countDown();
+                return null;
+            }
+            return group;
+        });
+        if (joined.get().leader == item) {
+            runGroup(key, joined.get());
+        }
+        try {
+            return item.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    long getExecutedGroups() {
+        return executedGroups.get();
+    }
+
+    long getExecutedItems() {
+        return executedItems.get();
+    }
+
+    private void runGroup(K key, Group<T, R> group) {
+        try {
+            if (windowNanos > 0 && executing.containsKey(key)) {
+                group.full.await(windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // no item can join once the group is removed from the map
+        openGroups.remove(key, group);
+        executing.merge(key, 1, Integer::sum);
+        List<Item<T, R>> items = group.items;
+        try {
+            executor.execute(key, items);
+            for (Item<T, R> item : items) {
+                item.publish();
+            }
+        } catch (RuntimeException | Error e) {
+            for (Item<T, R> item : items) {
+                item.future.completeExceptionally(e);
+            }
+        } finally {
+            executing.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+            executedGroups.incrementAndGet();
+            executedItems.addAndGet(items.size());
+        }
+    }
+
+    interface Executor<K, T, R> {
+        /**
+         * Processes all items of a group, calling {@link Item#succeed} or {@link Item#fail} for each.
+         */
+        void execute(K key, List<Item<T, R>> items);
+    }
+
+    static final class Item<T, R> {
+        private final T request;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private R result;
+        private RuntimeException failure;
+        private boolean done;
+
+        private Item(T request) {
+            this.request = request;
+        }
+
+        T getRequest() {
+            return request;
+        }
+
+        void succeed(R result) {
+            this.result = result;
+            this.done = true;
+        }
+
+        void fail(RuntimeException failure) {
+            this.failure = failure;
+            this.done = true;
+        }
+
+        private void publish() {
+            if (!done) {
+                future.completeExceptionally(new IllegalStateException("Group item was not processed"));
+            } else if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    private static final class Group<T, R> {
+        private final Item<T, R> leader;
+        private final List<Item<T, R>> items = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+
+        private Group(Item<T, R> leader) {
+            this.leader = leader;
+        }
+    }
+}
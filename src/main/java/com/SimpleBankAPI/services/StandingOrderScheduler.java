@@ -0,0 +1,140 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.models.StandingOrder;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs due standing orders spread over a window after midnight instead of all at once:
+ * <ul>
+ *     <li>{@link #poll()} reads due orders shard by shard in pages sorted by sender, up to
+ *     {@code max-pending} orders in memory, and puts each on a {@link TimingWheel} at
+ *     midnight + a fixed offset within {@code spread-window-minutes} derived from the sender,
+ *     so the orders of one account run together and accounts are spread evenly</li>
+ *     <li>{@link #tick()} runs at most {@code max-per-tick} orders that are due, sorted by sender;
+ *     the rest wait for the next tick</li>
+ * </ul>
+ * Orders loaded after their offset has passed (for example after a restart) run on the next ticks.
+ * Executed orders are no longer due; orders that failed for a transient reason are loaded again by the next poll.
+ */
+@Component
+public class StandingOrderScheduler {
+    private static final Logger log = LoggerFactory.getLogger(StandingOrderScheduler.class);
+    private static final int WHEEL_SLOTS = 1024;
+
+    private final StandingOrderService standingOrderService;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final long tickMillis;
+    private final long windowTicks;
+    private final int batchSize;
+    private final int maxPending;
+    private final int maxPerTick;
+    private TimingWheel<DueOrder> wheel;
+    private final Set<UUID> pending = new HashSet<>();
+
+    public StandingOrderScheduler(StandingOrderService standingOrderService, ShardRouter shardRouter,
+                                  @Value("${bank.standing-orders.enabled:true}") boolean enabled,
+                                  @Value("${bank.standing-orders.tick-ms:1000}") long tickMillis,
+                                  @Value("${bank.standing-orders.spread-window-minutes:60}") long spreadWindowMinutes,
+                                  @Value("${bank.standing-orders.batch-size:500}") int batchSize,
+                                  @Value("${bank.standing-orders.max-pending:10000}") int maxPending,
+                                  @Value("${bank.standing-orders.max-per-tick:50}") int maxPerTick) {
+        this.standingOrderService = standingOrderService;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.tickMillis = tickMillis;
+        this.windowTicks = Math.max(1, TimeUnit.MINUTES.toMillis(spreadWindowMinutes) / tickMillis);
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxPerTick = maxPerTick;
+        this.wheel = new TimingWheel<>(WHEEL_SLOTS, tickOf(LocalDateTime.now()));
+    }
+
+    // forgets all loaded orders and restarts the wheel at the given time
+    synchronized void reset(LocalDateTime now) {
+        pending.clear();
+        wheel = new TimingWheel<>(WHEEL_SLOTS, tickOf(now));
+    }
+
+    @Scheduled(fixedDelayString = "${bank.standing-orders.poll-ms:60000}")
+    public void poll() {
+        if (enabled) {
+            loadDue(LocalDateTime.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.standing-orders.tick-ms:1000}")
+    public void tick() {
+        if (enabled) {
+            runDue(LocalDateTime.now());
+        }
+    }
+
+    // returns the number of orders put on the wheel
+    synchronized int loadDue(LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        long windowStart = tickOf(today.atStartOfDay());
+        int loaded = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            StandingOrder last = null;
+            while (pending.size() < maxPending) {
+                List<StandingOrder> page = standingOrderService.findDue(shard, today, last, batchSize);
+                for (StandingOrder standingOrder : page) {
+                    if (pending.size() >= maxPending) {
+                        break;
+                    }
+                    if (pending.add(standingOrder.getId())) {
+                        long offset = Math.floorMod(standingOrder.getFromId().hashCode(), windowTicks);
+                        wheel.schedule(new DueOrder(standingOrder.getId(), standingOrder.getFromId(),
+                                standingOrder.getNextExecution()), windowStart + offset);
+                        loaded++;
+                    }
+                }
+                if (page.size() < batchSize) {
+                    break;
+                }
+                last = page.get(page.size() - 1);
+            }
+        }
+        return loaded;
+    }
+
+    // returns the number of orders run
+    synchronized int runDue(LocalDateTime now) {
+        List<DueOrder> due = wheel.advance(tickOf(now), maxPerTick);
+        due.sort(Comparator.comparing(DueOrder::fromId).thenComparing(DueOrder::standingOrderId));
+        for (DueOrder dueOrder : due) {
+            try {
+                standingOrderService.executeOccurrence(dueOrder.standingOrderId(), dueOrder.fromId(), dueOrder.occurrence());
+            } catch (RuntimeException e) {
+                log.warn("Standing order {} for {} failed, it will be retried", dueOrder.standingOrderId(),
+                        dueOrder.occurrence(), e);
+            } finally {
+                pending.remove(dueOrder.standingOrderId());
+            }
+        }
+        return due.size();
+    }
+
+    private long tickOf(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / tickMillis;
+    }
+
+    private record DueOrder(UUID standingOrderId, UUID fromId, LocalDate occurrence) {
+    }
+}
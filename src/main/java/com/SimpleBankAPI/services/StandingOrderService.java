@@ -0,0 +1,161 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.dtos.StandingOrderRequest;
+import com.SimpleBankAPI.dtos.TransferRequest;
+import com.SimpleBankAPI.enums.StandingOrderStatus;
+import com.SimpleBankAPI.exceptions.*;
+import com.SimpleBankAPI.models.StandingOrder;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.repositories.StandingOrderRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Standing orders and the execution of one occurrence; {@link StandingOrderScheduler} decides when.
+ * An occurrence is a regular transfer with the ref {@code SO-<order id>-<yyyyMMdd>}, so it goes through
+ * the same limits and balance checks, and running it twice (for example after a crash before the order
+ * was advanced) transfers the money once.
+ */
+@Service
+public class StandingOrderService {
+    private final StandingOrderRepository standingOrderRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionService transactionService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    public StandingOrderService(StandingOrderRepository standingOrderRepository, AccountRepository accountRepository,
+                                TransactionService transactionService, ShardRouter shardRouter,
+                                PlatformTransactionManager transactionManager) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.accountRepository = accountRepository;
+        this.transactionService = transactionService;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public StandingOrder createStandingOrder(UUID fromId, StandingOrderRequest standingOrderRequest){
+        BigDecimal amount = standingOrderRequest.getAmount();
+        UUID toId = standingOrderRequest.getToId();
+        LocalDate startDate = standingOrderRequest.getStartDate() == null ? LocalDate.now() : standingOrderRequest.getStartDate();
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidAmountException("Amount must be positive");
+        }
+        if (amount.compareTo(BigDecimal.valueOf(5000)) > 0){
+            throw new LimitReachedException("Transfer can be up to 5000");
+        }
+        if (standingOrderRequest.getFrequency() == null) {
+            throw new InvalidScheduleException("Frequency is required");
+        }
+        if (startDate.isBefore(LocalDate.now())) {
+            throw new InvalidScheduleException("Start date can not be in the past");
+        }
+        if (standingOrderRequest.getEndDate() != null && standingOrderRequest.getEndDate().isBefore(startDate)) {
+            throw new InvalidScheduleException("End date can not be before start date");
+        }
+        if (toId == null || !accountExists(fromId) || !accountExists(toId)) {
+            throw new AccountNotFoundException("Account does not exist");
+        }
+        StandingOrder standingOrder = new StandingOrder();
+        standingOrder.setFromId(fromId);
+        standingOrder.setToId(toId);
+        standingOrder.setAmount(amount);
+        standingOrder.setFrequency(standingOrderRequest.getFrequency());
+        standingOrder.setStartDate(startDate);
+        standingOrder.setEndDate(standingOrderRequest.getEndDate());
+        standingOrder.setNextExecution(startDate);
+        standingOrder.setStatus(StandingOrderStatus.ACTIVE);
+        standingOrder.setCreatedAt(LocalDateTime.now());
+        standingOrder.setUpdatedAt(standingOrder.getCreatedAt());
+        return shardRouter.callForAccount(fromId, () -> standingOrderRepository.save(standingOrder));
+    }
+
+    public List<StandingOrder> getStandingOrders(UUID fromId){
+        return shardRouter.callForAccount(fromId, () -> standingOrderRepository.findByFromIdOrderByCreatedAt(fromId));
+    }
+
+    public void cancelStandingOrder(UUID fromId, UUID standingOrderId){
+        shardRouter.runForAccount(fromId, () -> transactionTemplate.executeWithoutResult(status -> {
+            StandingOrder standingOrder = standingOrderRepository.findByIdForUpdate(standingOrderId)
+                    .filter(order -> order.getFromId().equals(fromId))
+                    .orElseThrow(() -> new StandingOrderNotFoundException("Standing order does not exist"));
+            if (standingOrder.getStatus() == StandingOrderStatus.ACTIVE) {
+                standingOrder.setStatus(StandingOrderStatus.CANCELLED);
+                standingOrder.setUpdatedAt(LocalDateTime.now());
+            }
+        }));
+    }
+
+    // one page of due orders of a shard, after the given order in (fromId, id) order
+    List<StandingOrder> findDue(int shard, LocalDate date, StandingOrder after, int limit){
+        PageRequest page = PageRequest.of(0, limit);
+        return shardRouter.callOnShard(shard, () -> after == null
+                ? standingOrderRepository.findDue(date, page)
+                : standingOrderRepository.findDueAfter(date, after.getFromId(), after.getId(), page));
+    }
+
+    /**
+     * Runs the occurrence if the order is still active and waiting for it. Business failures
+     * (balance, limits, missing account) skip the occurrence and are kept in {@code lastError};
+     * any other exception leaves the order due, so it is picked up again.
+     */
+    void executeOccurrence(UUID standingOrderId, UUID fromId, LocalDate occurrence){
+        StandingOrder standingOrder = shardRouter.callForAccount(fromId, () -> transactionTemplate.execute(
+                status -> standingOrderRepository.findById(standingOrderId).orElse(null)));
+        if (standingOrder == null || standingOrder.getStatus() != StandingOrderStatus.ACTIVE
+                || !occurrence.equals(standingOrder.getNextExecution())) {
+            return;
+        }
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setFromId(fromId);
+        transferRequest.setToId(standingOrder.getToId());
+        transferRequest.setAmount(standingOrder.getAmount());
+        transferRequest.setTransactionRef(transactionRef(standingOrderId, occurrence));
+        String error = null;
+        try {
+            transactionService.transfer(transferRequest);
+        } catch (InvalidAmountException | LimitReachedException | NotEnoughMoneyException | AccountNotFoundException
+                 | TransactionRefDuplicationException e) {
+            error = e.getMessage();
+        }
+        String lastError = error;
+        shardRouter.runForAccount(fromId, () -> transactionTemplate.executeWithoutResult(
+                status -> advance(standingOrderId, occurrence, lastError)));
+    }
+
+    private void advance(UUID standingOrderId, LocalDate occurrence, String lastError){
+        StandingOrder standingOrder = standingOrderRepository.findByIdForUpdate(standingOrderId).orElse(null);
+        if (standingOrder == null || !occurrence.equals(standingOrder.getNextExecution())) {
+            return;
+        }
+        LocalDate next = standingOrder.getFrequency().next(standingOrder.getStartDate(), occurrence);
+        standingOrder.setLastExecution(occurrence);
+        standingOrder.setLastError(lastError);
+        standingOrder.setNextExecution(next);
+        if (standingOrder.getEndDate() != null && next.isAfter(standingOrder.getEndDate())
+                && standingOrder.getStatus() == StandingOrderStatus.ACTIVE) {
+            standingOrder.setStatus(StandingOrderStatus.COMPLETED);
+        }
+        standingOrder.setUpdatedAt(LocalDateTime.now());
+    }
+
+    // on the primary, a replica may not have the account yet
+    private boolean accountExists(UUID accountId){
+        return shardRouter.callForAccount(accountId, () -> transactionTemplate.execute(
+                status -> accountRepository.existsById(accountId)));
+    }
+
+    static String transactionRef(UUID standingOrderId, LocalDate occurrence){
+        return "SO-" + standingOrderId + "-" + occurrence.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
@@ -0,0 +1,78 @@
+package com.SimpleBankAPI.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: an entry due at tick {@code t} waits in slot {@code t % slots}, so scheduling
+ * is O(1) and a tick only looks at one slot. Entries more than one turn away share the slot and
+ * stay there until their tick comes. Ticks in the past are scheduled for the current tick.
+ * <p>
+ * Not thread-safe.
+ */
+final class TimingWheel<T> {
+    private final List<List<Entry<T>>> slots;
+    private long cursor;
+    private int size;
+
+    TimingWheel(int slotCount, long startTick) {
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("slotCount must be positive");
+        }
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.cursor = startTick;
+    }
+
+    void schedule(T value, long tick) {
+        long due = Math.max(tick, cursor);
+        slots.get(index(due)).add(new Entry<>(due, value));
+        size++;
+    }
+
+    /**
+     * Removes and returns at most {@code limit} entries due up to {@code now}, oldest tick first.
+     * The cursor stops at a tick that still has entries left, they come first on the next call.
+     */
+    List<T> advance(long now, int limit) {
+        List<T> due = new ArrayList<>();
+        while (cursor <= now && due.size() < limit) {
+            Iterator<Entry<T>> iterator = slots.get(index(cursor)).iterator();
+            while (iterator.hasNext() && due.size() < limit) {
+                Entry<T> entry = iterator.next();
+                if (entry.tick <= cursor) {
+                    due.add(entry.value);
+                    iterator.remove();
+                }
+            }
+            if (due.size() < limit || !hasDue(cursor)) {
+                cursor++;
+            }
+        }
+        size -= due.size();
+        return due;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean hasDue(long tick) {
+        for (Entry<T> entry : slots.get(index(tick))) {
+            if (entry.tick <= tick) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int index(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+
+    private record Entry<T>(long tick, T value) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.ArchivedTransactionRef;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.repositories.ArchivedTransactionRefRepository;
+import com.SimpleBankAPI.repositories.TransactionRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Transactions posted with a ref, for the idempotency checks. Besides the transactions table it
+ * reads the refs the archive job keeps in {@code archived_transaction_refs}, so a request retried
+ * after its month was archived is still recognised. Runs on the shard selected by the caller.
+ */
+@Service
+public class TransactionRefLookup {
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRefRepository archivedTransactionRefRepository;
+    private final AccountRepository accountRepository;
+
+    public TransactionRefLookup(TransactionRepository transactionRepository,
+                                ArchivedTransactionRefRepository archivedTransactionRefRepository,
+                                AccountRepository accountRepository) {
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRefRepository = archivedTransactionRefRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    public List<Transaction> findByTransactionRef(String transactionRef){
+        List<Transaction> transactions = new ArrayList<>(transactionRepository.findByTransactionRef(transactionRef));
+        for (ArchivedTransactionRef archived : archivedTransactionRefRepository.findByTransactionRef(transactionRef)) {
+            transactions.add(toTransaction(archived));
+        }
+        return transactions;
+    }
+
+    public List<Transaction> findByTransactionRefIn(Collection<String> transactionRefs){
+        List<Transaction> transactions = new ArrayList<>(transactionRepository.findByTransactionRefIn(transactionRefs));
+        for (ArchivedTransactionRef archived : archivedTransactionRefRepository.findByTransactionRefIn(transactionRefs)) {
+            transactions.add(toTransaction(archived));
+        }
+        return transactions;
+    }
+
+    private Transaction toTransaction(ArchivedTransactionRef archived){
+        Account account = accountRepository.findById(archived.getAccountId()).orElseGet(() -> {
+            Account removed = new Account();
+            removed.setId(archived.getAccountId());
+            return removed;
+        });
+        Transaction transaction = new Transaction();
+        transaction.setId(archived.getId());
+        transaction.setTransactionRef(archived.getTransactionRef());
+        transaction.setDebit(archived.getDebit());
+        transaction.setCredit(archived.getCredit());
+        transaction.setDate(archived.getDate());
+        transaction.setAccount(account);
+        return transaction;
+    }
+}
@@ -1,75 +1,186 @@
 package com.SimpleBankAPI.services;
 
+import com.SimpleBankAPI.archive.ArchivedTransaction;
+import com.SimpleBankAPI.archive.TransactionArchive;
+import com.SimpleBankAPI.diagnostics.HotAccountTracker;
 import com.SimpleBankAPI.dtos.DepositRequest;
 import com.SimpleBankAPI.dtos.TransferRequest;
 import com.SimpleBankAPI.dtos.WithdrawalRequest;
 import com.SimpleBankAPI.exceptions.*;
 import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.ArchivedMonth;
 import com.SimpleBankAPI.models.Transaction;
 import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.repositories.ArchivedMonthRepository;
 import com.SimpleBankAPI.repositories.TransactionRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import jakarta.persistence.EntityManager;
 import org.hibernate.PessimisticLockException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.CannotAcquireLockException;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
     private final TransactionRepository transactionRepository;
+    private final TransactionRefLookup transactionRefLookup;
     private final AccountRepository accountRepository;
+    private final AccountLockManager accountLockManager;
+    private final TransactionArchive transactionArchive;
+    private final ArchivedMonthRepository archivedMonthRepository;
+    private final EntityManager entityManager;
+    private final AccountActivityService accountActivityService;
+    private final CrossShardTransferService crossShardTransferService;
+    private final ShardRouter shardRouter;
+    private final HotAccountTracker hotAccountTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate transferTransactionTemplate;
+    private final GroupCommitter<UUID, DepositRequest, Transaction> depositGroupCommitter;
 
-    public TransactionService(TransactionRepository transactionRepository, AccountRepository accountRepository) {
+    public TransactionService(TransactionRepository transactionRepository, TransactionRefLookup transactionRefLookup,
+                              AccountRepository accountRepository,
+                              AccountLockManager accountLockManager, TransactionArchive transactionArchive,
+                              ArchivedMonthRepository archivedMonthRepository, EntityManager entityManager,
+                              AccountActivityService accountActivityService, CrossShardTransferService crossShardTransferService,
+                              ShardRouter shardRouter, HotAccountTracker hotAccountTracker,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${bank.deposits.group-commit.window-ms:2}") long depositWindowMs,
+                              @Value("${bank.deposits.group-commit.max-items:64}") int depositMaxItems) {
         this.transactionRepository = transactionRepository;
+        this.transactionRefLookup = transactionRefLookup;
         this.accountRepository = accountRepository;
+        this.accountLockManager = accountLockManager;
+        this.transactionArchive = transactionArchive;
+        this.archivedMonthRepository = archivedMonthRepository;
+        this.entityManager = entityManager;
+        this.accountActivityService = accountActivityService;
+        this.crossShardTransferService = crossShardTransferService;
+        this.shardRouter = shardRouter;
+        this.hotAccountTracker = hotAccountTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transferTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.transferTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.depositGroupCommitter = new GroupCommitter<>(TimeUnit.MILLISECONDS.toNanos(depositWindowMs), depositMaxItems,
+                this::executeDepositGroup);
     }
-    @Transactional
+
+    // concurrent deposits to the same account are committed together, see executeDeposits;
+    // the request is validated before it joins a group
     public Transaction deposit(UUID accountId, DepositRequest depositRequest){
-        BigDecimal amount = depositRequest.getAmount();
-        String transactionRef = depositRequest.getTransactionRef();
-        if (amount.signum() <= 0) {
+        if (depositRequest == null) {
+            throw new InvalidRequestException("Request is required");
+        }
+        if (depositRequest.getAmount() == null || depositRequest.getAmount().signum() <= 0) {
             throw new InvalidAmountException("Amount must be positive");
         }
-        List<Transaction>transactionList = transactionRepository.findByTransactionRef(transactionRef);
-        if (!transactionList.isEmpty()){
-            for (Transaction tr:transactionList) {
-                if (!tr.getAccount().getId().equals(accountId)){
-                    throw new TransactionRefDuplicationException("TransactionRef should be unique");
+        return depositGroupCommitter.submit(accountId, depositRequest);
+    }
+
+    GroupCommitter<UUID, DepositRequest, Transaction> getDepositGroupCommitter(){
+        return depositGroupCommitter;
+    }
+
+    public Transaction withdrawal (UUID id, WithdrawalRequest withdrawalRequest){
+        return hotAccountTracker.callTracked("withdrawal", () -> accountLockManager.callWithLocks(() -> shardRouter.callForAccount(id,
+                () -> transactionTemplate.execute(status -> executeWithdrawal(id, withdrawalRequest))), id), id);
+    }
+
+    // the in-memory account lock is taken before the database transaction starts,
+    // so waiting callers do not hold a pooled connection
+    private void executeDepositGroup(UUID accountId, List<GroupCommitter.Item<DepositRequest, Transaction>> items){
+        hotAccountTracker.runTracked("deposit", () -> accountLockManager.runWithLocks(() -> shardRouter.runForAccount(accountId,
+                () -> transactionTemplate.executeWithoutResult(status -> executeDeposits(accountId, items))), accountId), accountId);
+    }
+
+    // one balance update and one batched insert for all deposits of the group;
+    // an item that fails for any reason fails on its own without affecting the others.
+    // Deposits without transactionRef are not deduplicated.
+    private void executeDeposits(UUID accountId, List<GroupCommitter.Item<DepositRequest, Transaction>> items){
+        List<String> transactionRefs = items.stream().map(item -> item.getRequest().getTransactionRef())
+                .filter(Objects::nonNull).distinct().toList();
+        Map<String, List<Transaction>> existing = new HashMap<>();
+        if (!transactionRefs.isEmpty()) {
+            for (Transaction tr : transactionRefLookup.findByTransactionRefIn(transactionRefs)) {
+                existing.computeIfAbsent(tr.getTransactionRef(), ref -> new ArrayList<>()).add(tr);
+            }
+        }
+        Map<String, Transaction> deposits = new HashMap<>();
+        List<Transaction> created = new ArrayList<>();
+        Account account = null;
+        BigDecimal total = BigDecimal.ZERO;
+        for (GroupCommitter.Item<DepositRequest, Transaction> item : items) {
+            try {
+                BigDecimal amount = item.getRequest().getAmount();
+                String transactionRef = item.getRequest().getTransactionRef();
+                if (amount == null || amount.signum() <= 0) {
+                    throw new InvalidAmountException("Amount must be positive");
+                }
+                Transaction transaction = transactionRef == null ? null : deposits.get(transactionRef);
+                if (transaction == null && transactionRef != null) {
+                    for (Transaction tr : existing.getOrDefault(transactionRef, List.of())) {
+                        if (!tr.getAccount().getId().equals(accountId)){
+                            throw new TransactionRefDuplicationException("TransactionRef should be unique");
+                        }
+                        if (tr.getCredit() != null) transaction = tr;
+                    }
+                }
+                if (transaction == null) {
+                    if (account == null) {
+                        account = accountRepository.findById(accountId)
+                                .orElseThrow(() -> new AccountNotFoundException("Account does not exist"));
+                    }
+                    transaction = new Transaction();
+                    transaction.setDate(LocalDateTime.now());
+                    transaction.setCredit(amount);
+                    transaction.setTransactionRef(transactionRef);
+                    transaction.setDebit(null);
+                    transaction.setAccount(account);
+                    total = total.add(amount);
+                    created.add(transaction);
+                }
+                if (transactionRef != null) {
+                    deposits.put(transactionRef, transaction);
                 }
-                if (tr.getCredit() != null) return tr;
+                item.succeed(transaction);
+            } catch (RuntimeException e) {
+                item.fail(e);
             }
         }
-
-        Transaction transaction = new Transaction();
-        if (accountRepository.existsById(accountId)) {
-            Account account  = accountRepository.findById(accountId).get();
-            transaction.setDate(LocalDateTime.now());
-            transaction.setCredit(amount);
-            transaction.setTransactionRef(transactionRef);
-            transaction.setDebit(null);
-            transaction.setAccount(account);
-            account.setBalance(account.getBalance().add(amount));
+        if (!created.isEmpty()) {
+            account.setBalance(account.getBalance().add(total));
             accountRepository.save(account);
-            transactionRepository.save(transaction);
-            return transaction;
-        } else
-            throw new AccountNotFoundException("Account does not exist");
+            transactionRepository.saveAll(created);
+            accountActivityService.recordAll(created);
+        }
     }
-    @Transactional
-    public Transaction withdrawal (UUID id, WithdrawalRequest withdrawalRequest){
+    private Transaction executeWithdrawal (UUID id, WithdrawalRequest withdrawalRequest){
         BigDecimal amount = withdrawalRequest.getAmount();
         String transactionRef = withdrawalRequest.getTransactionRef();
-        if (amount.signum() <= 0) {
+        if (amount == null || amount.signum() <= 0) {
             throw new InvalidAmountException("Amount must be positive");
         }
-        List<Transaction> transactionList = transactionRepository.findByTransactionRef(transactionRef);
+        List<Transaction> transactionList = transactionRefLookup.findByTransactionRef(transactionRef);
         if(!transactionList.isEmpty()){
             for (Transaction tr : transactionList) {
                 if (!tr.getAccount().getId().equals(id)){
@@ -92,22 +203,44 @@ public class TransactionService {
             transaction.setAccount(account);
             accountRepository.save(account);
             transactionRepository.save(transaction);
+            accountActivityService.record(transaction);
             return transaction;
         } else
             throw new AccountNotFoundException("Account does not exist");
     }
+    // accounts on the same shard keep a single local transaction,
+    // otherwise the transfer runs as reserve/commit through CrossShardTransferService
     public void transfer (TransferRequest transferRequest) {
+        if (transferRequest == null || transferRequest.getFromId() == null || transferRequest.getToId() == null) {
+            throw new InvalidRequestException("fromId and toId are required");
+        }
+        UUID fromId = transferRequest.getFromId();
+        UUID toId = transferRequest.getToId();
+        hotAccountTracker.runTracked("transfer", () -> accountLockManager.runWithLocks(() -> {
+            if (shardRouter.sameShard(fromId, toId)) {
+                shardRouter.runForAccount(fromId, () -> transferWithRetries(
+                        () -> transferTransactionTemplate.executeWithoutResult(status -> executeTransfer(transferRequest)), fromId, toId));
+            } else {
+                transferWithRetries(() -> crossShardTransferService.transfer(transferRequest), fromId, toId);
+            }
+        }, fromId, toId), fromId, toId);
+    }
+
+    // retries and failures are counted per account, see GET /admin/hot-accounts
+    private void transferWithRetries (Runnable transfer, UUID fromId, UUID toId) {
         int maxRetries = 3;
         int attempt = 0;
         while (attempt < maxRetries){
             try{
-                  executeTransfer(transferRequest);
+                  transfer.run();
             return;
             }catch (CannotAcquireLockException | PessimisticLockException e){
                 attempt++;
                 if (attempt >= maxRetries) {
+                    hotAccountTracker.recordFailedTransfer(fromId, toId);
                     throw new TransferFailedException("Transfer failed after retries");
                 }
+                hotAccountTracker.recordRetry(fromId, toId);
                 try {
                     Thread.sleep(50);
                 } catch (InterruptedException ie) {
@@ -117,13 +250,12 @@ public class TransactionService {
             }
         }
     }
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     private void executeTransfer(TransferRequest transferRequest){
         BigDecimal amount = transferRequest.getAmount();
         UUID fromId = transferRequest.getFromId();
         UUID toId = transferRequest.getToId();
         String transactionRef = transferRequest.getTransactionRef();
-        if (amount.signum() <= 0) {
+        if (amount == null || amount.signum() <= 0) {
             throw new InvalidAmountException("Amount must be positive");
         }
         if (!accountRepository.existsById(fromId) || !accountRepository.existsById(toId)) {
@@ -132,21 +264,21 @@ public class TransactionService {
             Account accountFrom = new Account();
             Account accountTo = new Account();
             if(fromId.toString().compareTo(toId.toString())<0) {
-                Optional<Account> accountFromOpt = accountRepository.findByIdForUpdate(fromId);
+                Optional<Account> accountFromOpt = lockAccount(fromId);
                 if (accountFromOpt.isPresent()) accountFrom = accountFromOpt.get();
-                Optional<Account> accountToOpt = accountRepository.findByIdForUpdate(toId);
+                Optional<Account> accountToOpt = lockAccount(toId);
                 if (accountToOpt.isPresent())  accountTo = accountToOpt.get();
 
             } else{
-                Optional<Account> accountToOpt = accountRepository.findByIdForUpdate(toId);
+                Optional<Account> accountToOpt = lockAccount(toId);
                 if (accountToOpt.isPresent())  accountTo = accountToOpt.get();
-                Optional<Account> accountFromOpt = accountRepository.findByIdForUpdate(fromId);
+                Optional<Account> accountFromOpt = lockAccount(fromId);
                 if (accountFromOpt.isPresent()) accountFrom = accountFromOpt.get();
             }
             if (amount.compareTo(BigDecimal.valueOf(5000)) > 0){
                 throw new LimitReachedException("Transfer can be up to 5000");
             }
-            List<Transaction> transactionList = transactionRepository.findByTransactionRef(transactionRef);
+            List<Transaction> transactionList = transactionRefLookup.findByTransactionRef(transactionRef);
             if(!transactionList.isEmpty()){
                 for (Transaction tr : transactionList) {
                     if (!tr.getAccount().getId().equals(toId) && !tr.getAccount().getId().equals(fromId)) {
@@ -171,6 +303,7 @@ public class TransactionService {
             transaction1.setCredit(null);
             transaction1.setDebit(amount);
             transactionRepository.save(transaction1);
+            accountActivityService.record(transaction1);
 
             Transaction transaction2 = new Transaction();
             transaction2.setDate(LocalDateTime.now());
@@ -180,20 +313,97 @@ public class TransactionService {
             transaction2.setDebit(null);
             transaction2.setCredit(amount);
             transactionRepository.save(transaction2);
+            accountActivityService.record(transaction2);
         }
     }
 
+    private Optional<Account> lockAccount(UUID id){
+        return hotAccountTracker.timeLockWait(id, () -> accountRepository.findByIdForUpdate(id));
+    }
 
+    // read-only transactions go to the shard replica when it is recent enough, and Hibernate skips flushing them
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsById(UUID id){
-        return transactionRepository.findByAccountId(id);
+        int shard = shardRouter.shardOf(id);
+        return shardRouter.callOnShard(shard, () -> withArchived(id, findArchived(shard, id, null, null),
+                transactionRepository.findByAccountId(id)));
     }
 
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByIdAndDateBetween(UUID id, LocalDateTime from, LocalDateTime to){
-       return transactionRepository.findByAccountIdAndDateBetween(id,from,to);
+        int shard = shardRouter.shardOf(id);
+        return shardRouter.callOnShard(shard, () -> withArchived(id, findArchived(shard, id, from, to),
+                transactionRepository.findByAccountIdAndDateBetween(id,from,to)));
+    }
+
+    /**
+     * Same rows as {@link #getTransactionsByIdAndDateBetween}, handed to the consumer as a stream that must be
+     * consumed before it returns: archived months first, then the table rows read through a cursor and
+     * detached one by one, so the history is never held in memory as a whole. Errors that can be known in
+     * advance (an unreadable archive) are thrown before the consumer is called.
+     */
+    @Transactional(readOnly = true)
+    public void streamTransactionsByIdAndDateBetween(UUID id, LocalDateTime from, LocalDateTime to,
+                                                     Consumer<Stream<Transaction>> consumer){
+        int shard = shardRouter.shardOf(id);
+        shardRouter.runOnShard(shard, () -> {
+            List<ArchivedTransaction> archived = findArchived(shard, id, from, to);
+            Set<UUID> archivedIds = new HashSet<>();
+            archived.forEach(archivedTransaction -> archivedIds.add(archivedTransaction.id()));
+            Account account = archived.isEmpty() ? null : accountRepository.findById(id).orElse(null);
+            try (Stream<Transaction> live = transactionRepository.streamByAccountIdAndDateBetween(id, from, to)) {
+                consumer.accept(Stream.concat(
+                        archived.stream().map(archivedTransaction -> archivedTransaction.toTransaction(account)),
+                        live.filter(transaction -> !archivedIds.contains(transaction.getId())).peek(entityManager::detach)));
+            }
+        });
+    }
+
+    // a month recorded as archived whose segment is missing on this node would silently be left out
+    // of the history (and of a recalculated balance), so the read fails instead
+    private List<ArchivedTransaction> findArchived(int shard, UUID id, LocalDateTime from, LocalDateTime to){
+        for (ArchivedMonth archivedMonth : archivedMonthRepository.findAll()) {
+            YearMonth month = YearMonth.from(archivedMonth.getMonthStart());
+            boolean inRange = (from == null || !month.isBefore(YearMonth.from(from)))
+                    && (to == null || !month.isAfter(YearMonth.from(to)));
+            if (inRange && !transactionArchive.contains(shard, month)) {
+                throw new ArchiveUnavailableException("Archived transactions of " + month + " are not available");
+            }
+        }
+        return transactionArchive.find(shard, id, from, to);
+    }
+
+    // archived months go first; rows present both in the archive and in the table are returned once
+    private List<Transaction> withArchived(UUID id, List<ArchivedTransaction> archived, List<Transaction> live){
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Account account = live.isEmpty() ? accountRepository.findById(id).orElse(null) : live.get(0).getAccount();
+        Map<UUID, Transaction> merged = new LinkedHashMap<>();
+        for (ArchivedTransaction archivedTransaction : archived) {
+            merged.put(archivedTransaction.id(), archivedTransaction.toTransaction(account));
+        }
+        for (Transaction transaction : live) {
+            merged.put(transaction.getId(), transaction);
+        }
+        return new ArrayList<>(merged.values());
     }
 
+    // a read-write transaction, so the history is read from the primary the balance is written to;
+    // the account locks keep postings out while the balance and summaries are rebuilt;
+    // nothing is written when an archived month can not be read (ArchiveUnavailableException)
     public void recalculate (UUID id){
-        List<Transaction> transactions = transactionRepository.findByAccountId(id);
+        accountLockManager.runWithLocks(() -> shardRouter.runForAccount(id,
+                () -> transactionTemplate.executeWithoutResult(status -> executeRecalculate(id))), id);
+    }
+
+    private void executeRecalculate (UUID id){
+        // the row lock is taken before reading the history, postings from other nodes wait for it
+        Optional<Account> locked = lockAccount(id);
+        if (locked.isEmpty()) {
+            return;
+        }
+        List<Transaction> transactions = getTransactionsById(id);
         BigDecimal total = BigDecimal.ZERO;
         for (Transaction t : transactions) {
             if (t.getCredit()!=null) {
@@ -203,14 +413,38 @@ public class TransactionService {
             }
         }
 
-        if (accountRepository.findById(id).isPresent()){
-            Account account = accountRepository.findById(id).get();
-            if (!(total.compareTo(account.getBalance())==0)){
-                account.setBalance(total);
-                accountRepository.save(account);
-            }
-
+        Account account = locked.get();
+        if (!(total.compareTo(account.getBalance())==0)){
+            account.setBalance(total);
+            accountRepository.save(account);
+        }
+        accountActivityService.rebuild(id, transactions);
+        // the summary now covers the full history, the backfill job can skip the account
+        if (account.getActivityBackfilledAt() == null) {
+            account.setActivityBackfilledAt(LocalDateTime.now());
+            accountRepository.save(account);
         }
+    }
+
+    /**
+     * Rebuilds the activity summary of an account that had postings before summaries were kept, under the same
+     * locks as {@link #recalculate}; the balance is left as it is. Returns false when there was nothing to do,
+     * because the account is gone or was backfilled in the meantime (by another node or a recalculation).
+     */
+    public boolean backfillActivity(UUID id){
+        return Boolean.TRUE.equals(accountLockManager.callWithLocks(() -> shardRouter.callForAccount(id,
+                () -> transactionTemplate.execute(status -> executeBackfillActivity(id))), id));
+    }
 
+    private boolean executeBackfillActivity(UUID id){
+        Optional<Account> locked = lockAccount(id);
+        if (locked.isEmpty() || locked.get().getActivityBackfilledAt() != null) {
+            return false;
+        }
+        accountActivityService.rebuild(id, getTransactionsById(id));
+        Account account = locked.get();
+        account.setActivityBackfilledAt(LocalDateTime.now());
+        accountRepository.save(account);
+        return true;
     }
 }
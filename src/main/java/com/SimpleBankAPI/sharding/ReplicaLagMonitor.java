@@ -0,0 +1,103 @@
+package com.SimpleBankAPI.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replica lag with heartbeats: every {@code bank.replicas.heartbeat-ms} the current time is
+ * written to {@code replica_heartbeats} on each primary that has a replica, and the newest value the
+ * replica returns is everything it is known to have replayed. This works with any database and
+ * replication method, and an idle primary does not look like a lagging one.
+ * <p>
+ * The pools are used directly rather than through the routing datasources, so the replica is always
+ * the one asked. All instances write the same row per shard, their clocks should be synchronised.
+ * <p>
+ * Heartbeats run on a thread of their own rather than on the shared {@code @Scheduled} thread, so a long
+ * archive run or standing order tick can not delay them. If they stop anyway, the measured lag keeps
+ * growing with the clock and the replica stops being used once it passes {@code bank.replicas.max-lag-ms}.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReplicaRoutingDataSource dataSource;
+    private final boolean[] unavailable;
+    private ScheduledExecutorService executor;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.unavailable = new boolean[dataSource.getReplicas().size()];
+    }
+
+    // nothing to measure without replicas
+    public synchronized void start(long heartbeatMs){
+        if (executor != null || !dataSource.hasReplicas()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                heartbeat();
+            } catch (RuntimeException e) {
+                log.warn("Replica heartbeat failed", e);
+            }
+        }, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close(){
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public synchronized void heartbeat(){
+        List<DataSource> replicas = dataSource.getReplicas();
+        for (int shard = 0; shard < replicas.size(); shard++) {
+            if (replicas.get(shard) == null) {
+                continue;
+            }
+            try {
+                beat(new JdbcTemplate(dataSource.getPrimary().getShards().get(shard)), shard);
+            } catch (DataAccessException e) {
+                log.warn("Could not write the replica heartbeat of shard {}", shard, e);
+            }
+            try {
+                List<Long> replicated = new JdbcTemplate(replicas.get(shard))
+                        .queryForList("select beat_at from replica_heartbeats where shard = ?", Long.class, shard);
+                if (!replicated.isEmpty() && replicated.get(0) != null) {
+                    dataSource.markReplicatedUpTo(shard, replicated.get(0));
+                }
+                if (unavailable[shard]) {
+                    log.info("Replica of shard {} is reachable again", shard);
+                    unavailable[shard] = false;
+                }
+            } catch (DataAccessException e) {
+                dataSource.markUnavailable(shard);
+                if (!unavailable[shard]) {
+                    log.warn("Replica of shard {} unavailable, reads stay on the primary", shard, e);
+                    unavailable[shard] = true;
+                }
+            }
+        }
+    }
+
+    private void beat(JdbcTemplate primary, int shard){
+        long now = System.currentTimeMillis();
+        if (primary.update("update replica_heartbeats set beat_at = ? where shard = ?", now, shard) == 0) {
+            primary.update("insert into replica_heartbeats (shard, beat_at) values (?, ?)", shard, now);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.SimpleBankAPI.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas of the shards, one entry per shard in shard order; an entry without url leaves
+ * that shard without replica. Read-only transactions use the replica of their shard as long as it
+ * is at most {@code maxLagMs} behind its primary, see {@link ReplicaRoutingDataSource}.
+ */
+@ConfigurationProperties(prefix = "bank.replicas")
+public class ReplicaProperties {
+    private long maxLagMs = 5000;
+    private long heartbeatMs = 1000;
+    private List<ShardProperties.Shard> datasources = new ArrayList<>();
+
+    public long getMaxLagMs() {
+        return maxLagMs;
+    }
+
+    public void setMaxLagMs(long maxLagMs) {
+        this.maxLagMs = maxLagMs;
+    }
+
+    public long getHeartbeatMs() {
+        return heartbeatMs;
+    }
+
+    public void setHeartbeatMs(long heartbeatMs) {
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public List<ShardProperties.Shard> getDatasources() {
+        return datasources;
+    }
+
+    public void setDatasources(List<ShardProperties.Shard> datasources) {
+        this.datasources = datasources;
+    }
+}
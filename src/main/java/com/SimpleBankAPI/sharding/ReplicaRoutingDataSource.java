@@ -0,0 +1,138 @@
+package com.SimpleBankAPI.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hands out connections of the replica of the shard selected through {@link ShardRouter}, as long as
+ * the replica is known to have everything committed on the primary up to {@code maxLagMillis} ago.
+ * Otherwise, and when the replica can not be reached, the connection comes from the primary of the shard.
+ * <p>
+ * How far a replica has caught up is measured by {@link ReplicaLagMonitor}. Nothing is known at
+ * startup, so reads stay on the primaries until the first heartbeat has been replicated.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final ShardRoutingDataSource primary;
+    private final List<DataSource> replicas;
+    private final long maxLagMillis;
+    // epoch millis of the newest heartbeat seen on the replica, 0 when unknown
+    private final AtomicLongArray replicatedUpTo;
+
+    public ReplicaRoutingDataSource(ShardRoutingDataSource primary, List<DataSource> replicas, long maxLagMillis) {
+        if (replicas.size() > primary.getShards().size()) {
+            throw new IllegalArgumentException("More replicas than shards");
+        }
+        List<DataSource> padded = new ArrayList<>(replicas);
+        padded.addAll(Collections.nCopies(primary.getShards().size() - replicas.size(), null));
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(padded);
+        this.maxLagMillis = maxLagMillis;
+        this.replicatedUpTo = new AtomicLongArray(padded.size());
+    }
+
+    public boolean hasReplicas() {
+        return replicas.stream().anyMatch(replica -> replica != null);
+    }
+
+    /**
+     * Replica of each shard, {@code null} for shards without one.
+     */
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public ShardRoutingDataSource getPrimary() {
+        return primary;
+    }
+
+    public void markReplicatedUpTo(int shard, long epochMillis) {
+        replicatedUpTo.accumulateAndGet(shard, epochMillis, Math::max);
+    }
+
+    public void markUnavailable(int shard) {
+        replicatedUpTo.set(shard, 0);
+    }
+
+    /**
+     * Upper bound of how far the replica is behind its primary, -1 when unknown.
+     */
+    public long lagMillis(int shard) {
+        long upTo = replicatedUpTo.get(shard);
+        return upTo == 0 ? -1 : Math.max(0, System.currentTimeMillis() - upTo);
+    }
+
+    public boolean isUsable(int shard) {
+        long lag = lagMillis(shard);
+        return replicas.get(shard) != null && lag >= 0 && lag <= maxLagMillis;
+    }
+
+    public List<ReplicaStatus> status() {
+        List<ReplicaStatus> status = new ArrayList<>();
+        for (int shard = 0; shard < replicas.size(); shard++) {
+            if (replicas.get(shard) != null) {
+                long lag = lagMillis(shard);
+                status.add(new ReplicaStatus(shard, lag < 0 ? null : lag, isUsable(shard)));
+            }
+        }
+        return status;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int shard = currentShard();
+        if (isUsable(shard)) {
+            try {
+                return replicas.get(shard).getConnection();
+            } catch (SQLException e) {
+                log.warn("Replica of shard {} unavailable, reading from the primary: {}", shard, e.getMessage());
+                markUnavailable(shard);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int shard = currentShard();
+        if (isUsable(shard)) {
+            try {
+                return replicas.get(shard).getConnection(username, password);
+            } catch (SQLException e) {
+                log.warn("Replica of shard {} unavailable, reading from the primary: {}", shard, e.getMessage());
+                markUnavailable(shard);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static int currentShard() {
+        Integer shard = ShardRouter.currentShard();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Entry of {@code GET /admin/replicas}; {@code lagMs} is null until a heartbeat was replicated.
+     */
+    public record ReplicaStatus(int shard, Long lagMs, boolean usable) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.SimpleBankAPI.sharding;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Maps accounts to shards and selects the shard used by the current thread.
+ * The shard has to be selected before the first statement of a database transaction, because the
+ * connection is taken from the shard that is current at that moment; a transaction never spans shards.
+ */
+public class ShardRouter {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    static Integer currentShard() {
+        return CURRENT.get();
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(UUID accountId) {
+        return Math.floorMod(accountId.hashCode(), shardCount);
+    }
+
+    public boolean sameShard(UUID first, UUID second) {
+        return shardOf(first) == shardOf(second);
+    }
+
+    public <T> T callOnShard(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void runOnShard(int shard, Runnable action) {
+        callOnShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T callForAccount(UUID accountId, Supplier<T> action) {
+        return callOnShard(shardOf(accountId), action);
+    }
+
+    public void runForAccount(UUID accountId, Runnable action) {
+        runOnShard(shardOf(accountId), action);
+    }
+}
@@ -0,0 +1,57 @@
+package com.SimpleBankAPI.sharding;
+
+import com.SimpleBankAPI.SimpleBankApiApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hibernate only manages the schema of the shard it sees at startup (shard 0).
+ * This applies the same {@code ddl-auto} mode to the other shards with a short-lived
+ * EntityManagerFactory; {@code create-drop} runs as {@code create} there.
+ */
+@Component
+public class ShardSchemaInitializer implements InitializingBean {
+    private final ShardRoutingDataSource dataSource;
+    private final EntityManagerFactoryBuilder entityManagerFactoryBuilder;
+    private final Map<String, Object> hibernateProperties;
+
+    // depends on the main EntityManagerFactory so shard 0 is initialised first
+    public ShardSchemaInitializer(ShardRoutingDataSource dataSource, EntityManagerFactoryBuilder entityManagerFactoryBuilder,
+                                  EntityManagerFactory entityManagerFactory, JpaProperties jpaProperties,
+                                  HibernateProperties hibernateProperties) {
+        this.dataSource = dataSource;
+        this.entityManagerFactoryBuilder = entityManagerFactoryBuilder;
+        this.hibernateProperties = hibernateProperties.determineHibernateProperties(jpaProperties.getProperties(),
+                new HibernateSettings().ddlAuto(() -> "none"));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Object ddlAuto = hibernateProperties.get(AvailableSettings.HBM2DDL_AUTO);
+        if (ddlAuto == null || "none".equals(ddlAuto)) {
+            return;
+        }
+        Map<String, Object> properties = new HashMap<>(hibernateProperties);
+        properties.put(AvailableSettings.HBM2DDL_AUTO, "create-drop".equals(ddlAuto) ? "create" : ddlAuto);
+        for (int shard = 1; shard < dataSource.getShards().size(); shard++) {
+            LocalContainerEntityManagerFactoryBean factory = entityManagerFactoryBuilder
+                    .dataSource(dataSource.getShards().get(shard))
+                    .packages(SimpleBankApiApplication.class)
+                    .persistenceUnit("shard-" + shard)
+                    .properties(properties)
+                    .build();
+            factory.afterPropertiesSet();
+            factory.destroy();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.SimpleBankAPI.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties({ShardProperties.class, ReplicaProperties.class})
+public class ShardingConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties dataSourceProperties, ShardProperties shardProperties) {
+        List<DataSource> shards = new ArrayList<>();
+        if (shardProperties.getShards().isEmpty()) {
+            shards.add(dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+        }
+        for (ShardProperties.Shard shard : shardProperties.getShards()) {
+            shards.add(build(shard));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(ShardRoutingDataSource shardRoutingDataSource,
+                                                             ReplicaProperties replicaProperties) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (ShardProperties.Shard replica : replicaProperties.getDatasources()) {
+            replicas.add(replica.getUrl() == null || replica.getUrl().isBlank() ? null : build(replica));
+        }
+        return new ReplicaRoutingDataSource(shardRoutingDataSource, replicas, replicaProperties.getMaxLagMs());
+    }
+
+    // connections are taken at the first statement, so read-only transactions can be sent to a replica
+    // and the shard can still be selected inside a transaction that was started before
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+        if (replicaRoutingDataSource.hasReplicas()) {
+            dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        }
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource, ReplicaProperties replicaProperties) {
+        ReplicaLagMonitor replicaLagMonitor = new ReplicaLagMonitor(replicaRoutingDataSource);
+        replicaLagMonitor.start(replicaProperties.getHeartbeatMs());
+        return replicaLagMonitor;
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardRoutingDataSource dataSource) {
+        return new ShardRouter(dataSource.getShards().size());
+    }
+
+    private static DataSource build(ShardProperties.Shard shard) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(shard.getUrl())
+                .username(shard.getUsername())
+                .password(shard.getPassword())
+                .driverClassName(shard.getDriverClassName())
+                .build();
+    }
+}
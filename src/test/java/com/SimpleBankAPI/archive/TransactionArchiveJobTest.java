@@ -0,0 +1,143 @@
+package com.SimpleBankAPI.archive;
+
+import com.SimpleBankAPI.dtos.DepositRequest;
+import com.SimpleBankAPI.dtos.WithdrawalRequest;
+import com.SimpleBankAPI.exceptions.ArchiveUnavailableException;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.ArchivedMonth;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.repositories.ArchivedMonthRepository;
+import com.SimpleBankAPI.repositories.TransactionRepository;
+import com.SimpleBankAPI.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TransactionArchiveJobTest {
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry){
+        registry.add("bank.archive.dir", archiveDirectory::toString);
+    }
+
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    TransactionArchiveJob transactionArchiveJob;
+    @Autowired
+    ArchivedMonthRepository archivedMonthRepository;
+
+    @Test
+    void archivedMonths_shouldStayVisibleInHistoryAndRecalculation(){
+        Account account = new Account();
+        account.setBalance(BigDecimal.ZERO);
+        account.setOwnerAccount("Olga");
+        account.setCreatedAt(LocalDateTime.now());
+        account.setNumberAccount(4321L);
+        Account savedAccount = accountRepository.save(account);
+
+        saveTransaction(savedAccount, "ARCH-001", BigDecimal.valueOf(300), null, LocalDateTime.of(2020, 1, 10, 12, 0));
+        saveTransaction(savedAccount, "ARCH-002", null, BigDecimal.valueOf(100), LocalDateTime.of(2020, 2, 10, 12, 0));
+        saveTransaction(savedAccount, "ARCH-003", BigDecimal.valueOf(50), null, LocalDateTime.now());
+
+        transactionArchiveJob.archiveClosedMonths();
+
+        assertEquals(1, transactionRepository.findByAccountId(savedAccount.getId()).size());
+        assertTrue(archivedMonthRepository.existsById(LocalDate.of(2020, 1, 1)));
+        List<Transaction> history = transactionService.getTransactionsById(savedAccount.getId());
+        assertEquals(List.of("ARCH-001", "ARCH-002", "ARCH-003"),
+                history.stream().map(Transaction::getTransactionRef).toList());
+        List<Transaction> february = transactionService.getTransactionsByIdAndDateBetween(savedAccount.getId(),
+                LocalDateTime.of(2020, 2, 1, 0, 0), LocalDateTime.of(2020, 2, 29, 0, 0));
+        assertEquals(1, february.size());
+        assertEquals(savedAccount.getId(), february.get(0).getAccount().getId());
+
+        transactionService.recalculate(savedAccount.getId());
+        Account recalculated = accountRepository.findById(savedAccount.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(250).compareTo(recalculated.getBalance()));
+    }
+
+    @Test
+    void archivedRefs_shouldStillBeRecognisedAsDuplicates(){
+        Account account = new Account();
+        account.setBalance(BigDecimal.valueOf(500));
+        Account savedAccount = accountRepository.save(account);
+        saveTransaction(savedAccount, "ARCH-REF-001", BigDecimal.valueOf(300), null, LocalDateTime.of(2020, 3, 10, 12, 0));
+        saveTransaction(savedAccount, "ARCH-REF-002", null, BigDecimal.valueOf(100), LocalDateTime.of(2020, 3, 11, 12, 0));
+
+        transactionArchiveJob.archiveClosedMonths();
+        assertEquals(0, transactionRepository.findByAccountId(savedAccount.getId()).size());
+
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setTransactionRef("ARCH-REF-001");
+        depositRequest.setAmount(BigDecimal.valueOf(300));
+        WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
+        withdrawalRequest.setTransactionRef("ARCH-REF-002");
+        withdrawalRequest.setAmount(BigDecimal.valueOf(100));
+        Transaction deposit = transactionService.deposit(savedAccount.getId(), depositRequest);
+        Transaction withdrawal = transactionService.withdrawal(savedAccount.getId(), withdrawalRequest);
+
+        assertEquals(LocalDateTime.of(2020, 3, 10, 12, 0), deposit.getDate());
+        assertEquals(LocalDateTime.of(2020, 3, 11, 12, 0), withdrawal.getDate());
+        assertEquals(0, transactionRepository.findByAccountId(savedAccount.getId()).size());
+        Account unchanged = accountRepository.findById(savedAccount.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(unchanged.getBalance()));
+    }
+
+    @Test
+    void archivedMonthMissingOnThisNode_shouldFailReadsAndRecalculation(){
+        Account account = new Account();
+        account.setBalance(BigDecimal.valueOf(80));
+        Account savedAccount = accountRepository.save(account);
+        saveTransaction(savedAccount, "ARCH-MISS-001", BigDecimal.valueOf(50), null, LocalDateTime.now());
+        // recorded by another node whose segment this node does not have
+        ArchivedMonth missing = new ArchivedMonth();
+        missing.setMonthStart(LocalDate.of(2019, 5, 1));
+        missing.setRowCount(3);
+        missing.setArchivedAt(LocalDateTime.now());
+        archivedMonthRepository.save(missing);
+        try {
+            assertThrows(ArchiveUnavailableException.class, () -> transactionService.getTransactionsById(savedAccount.getId()));
+            assertThrows(ArchiveUnavailableException.class, () -> transactionService.recalculate(savedAccount.getId()));
+            Account unchanged = accountRepository.findById(savedAccount.getId()).orElseThrow();
+            assertEquals(0, BigDecimal.valueOf(80).compareTo(unchanged.getBalance()));
+            assertEquals(1, transactionService.getTransactionsByIdAndDateBetween(savedAccount.getId(),
+                    LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.now().plusMinutes(1)).size());
+        } finally {
+            archivedMonthRepository.delete(missing);
+        }
+    }
+
+    private void saveTransaction(Account account, String ref, BigDecimal credit, BigDecimal debit, LocalDateTime date){
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setTransactionRef(ref);
+        transaction.setCredit(credit);
+        transaction.setDebit(debit);
+        transaction.setDate(date);
+        transactionRepository.save(transaction);
+    }
+}
@@ -0,0 +1,74 @@
+package com.SimpleBankAPI.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenSegment_shouldBeReadableAfterReopen(){
+        List<UUID> accounts = new ArrayList<>();
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        for (int a = 0; a < 200; a++) {
+            UUID accountId = UUID.randomUUID();
+            accounts.add(accountId);
+            for (int day = 1; day <= 5; day++) {
+                rows.add(new ArchivedTransaction(UUID.randomUUID(), accountId, "REF-" + a + "-" + day,
+                        day % 2 == 0 ? BigDecimal.valueOf(day * 10.5) : null,
+                        day % 2 == 0 ? null : BigDecimal.valueOf(day * 100),
+                        LocalDateTime.of(2020, 1, day, 10, 15, 30, 123_456_000)));
+            }
+        }
+        TransactionArchive archive = new TransactionArchive(directory.toString());
+        assertEquals(1000, archive.write(0, YearMonth.of(2020, 1), rows.iterator()));
+
+        TransactionArchive reopened = new TransactionArchive(directory.toString());
+        assertTrue(reopened.contains(0, YearMonth.of(2020, 1)));
+        List<ArchivedTransaction> all = reopened.find(0, accounts.get(42), null, null);
+        assertEquals(5, all.size());
+        ArchivedTransaction second = all.get(1);
+        assertEquals(rows.get(42 * 5 + 1).id(), second.id());
+        assertEquals("REF-42-2", second.transactionRef());
+        assertEquals(0, BigDecimal.valueOf(21).compareTo(second.debit()));
+        assertNull(second.credit());
+        assertEquals(LocalDateTime.of(2020, 1, 2, 10, 15, 30, 123_456_000), second.date());
+
+        List<ArchivedTransaction> range = reopened.find(0, accounts.get(7),
+                LocalDateTime.of(2020, 1, 2, 0, 0), LocalDateTime.of(2020, 1, 3, 23, 59));
+        assertEquals(2, range.size());
+        assertTrue(reopened.find(0, UUID.randomUUID(), null, null).isEmpty());
+        assertTrue(reopened.find(0, accounts.get(7), LocalDateTime.of(2020, 2, 1, 0, 0), null).isEmpty());
+    }
+
+    @Test
+    void segmentWrittenBeforeSharding_shouldBeReadAsShardZero() throws Exception {
+        UUID accountId = UUID.randomUUID();
+        ArchivedTransaction row = new ArchivedTransaction(UUID.randomUUID(), accountId, "REF-OLD", BigDecimal.TEN, null,
+                LocalDateTime.of(2019, 12, 24, 9, 0));
+        new TransactionArchive(directory.toString()).write(0, YearMonth.of(2019, 12), List.of(row).iterator());
+        Files.move(directory.resolve("transactions-0-2019-12.seg"), directory.resolve("transactions-2019-12.seg"));
+
+        TransactionArchive reopened = new TransactionArchive(directory.toString());
+
+        assertTrue(reopened.contains(0, YearMonth.of(2019, 12)));
+        assertEquals("REF-OLD", reopened.find(0, accountId, null, null).get(0).transactionRef());
+        assertTrue(Files.exists(directory.resolve("transactions-0-2019-12.seg")));
+        assertFalse(Files.exists(directory.resolve("transactions-2019-12.seg")));
+    }
+}
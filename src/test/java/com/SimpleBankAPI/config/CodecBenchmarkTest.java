@@ -0,0 +1,137 @@
+package com.SimpleBankAPI.config;
+
+import com.SimpleBankAPI.dtos.DepositRequest;
+import com.SimpleBankAPI.dtos.TransferRequest;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.Transaction;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Payload size and serialisation CPU time of JSON and CBOR for the API's request and response bodies.
+ * Excluded from the regular build, run with {@code mvn -Pbenchmark test}; {@code -Dbenchmark.seconds}
+ * sets the measured time per case. The report is printed and written to {@code target/codec-benchmark.txt}.
+ */
+@Tag("benchmark")
+public class CodecBenchmarkTest {
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+    private final long measureNanos = Long.getLong("benchmark.seconds", 2L) * 1_000_000_000L;
+
+    // keeps results reachable so the JIT can not drop the measured work
+    private long sink;
+
+    @Test
+    void jsonAndCbor_shouldBeMeasured() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-22s %-5s %10s %14s %14s", "payload", "codec", "bytes", "encode ns/op", "decode ns/op"));
+        boolean cborSmaller = true;
+        cborSmaller &= measure(lines, "DepositRequest", depositRequest(), DepositRequest.class);
+        cborSmaller &= measure(lines, "TransferRequest", transferRequest(), TransferRequest.class);
+        cborSmaller &= measure(lines, "history (1000 rows)", history(1000),
+                json.getTypeFactory().constructCollectionType(List.class, Transaction.class));
+
+        String report = String.join(System.lineSeparator(), lines);
+        System.out.println(report);
+        Files.writeString(Path.of("target", "codec-benchmark.txt"), report + System.lineSeparator());
+        assertTrue(cborSmaller, report);
+    }
+
+    private boolean measure(List<String> lines, String name, Object value, Class<?> type) throws Exception {
+        return measure(lines, name, value, json.constructType(type));
+    }
+
+    private boolean measure(List<String> lines, String name, Object value, JavaType type) throws Exception {
+        int jsonSize = 0;
+        int cborSize = 0;
+        for (ObjectMapper mapper : List.of(json, cbor)) {
+            byte[] encoded = mapper.writeValueAsBytes(value);
+            double encode = nanosPerOp(() -> sink += mapper.writeValueAsBytes(value).length);
+            double decode = nanosPerOp(() -> sink += System.identityHashCode(mapper.readValue(encoded, type)));
+            lines.add(String.format("%-22s %-5s %10d %14.0f %14.0f", name, mapper == json ? "json" : "cbor",
+                    encoded.length, encode, decode));
+            if (mapper == json) {
+                jsonSize = encoded.length;
+            } else {
+                cborSize = encoded.length;
+            }
+        }
+        return cborSize < jsonSize;
+    }
+
+    private double nanosPerOp(Operation operation) throws Exception {
+        // warm up for half the measured time, then count operations in the measured time
+        long warmupEnd = System.nanoTime() + measureNanos / 2;
+        while (System.nanoTime() < warmupEnd) {
+            operation.run();
+        }
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 16; i++) {
+                operation.run();
+            }
+            operations += 16;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < measureNanos);
+        return (double) elapsed / operations;
+    }
+
+    private DepositRequest depositRequest() {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setTransactionRef("DEP-2025-000001");
+        depositRequest.setAmount(new BigDecimal("500.00"));
+        return depositRequest;
+    }
+
+    private TransferRequest transferRequest() {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setFromId(UUID.randomUUID());
+        transferRequest.setToId(UUID.randomUUID());
+        transferRequest.setTransactionRef("TRF-2025-000001");
+        transferRequest.setAmount(new BigDecimal("1000.00"));
+        return transferRequest;
+    }
+
+    private List<Transaction> history(int size) {
+        Account account = new Account();
+        account.setId(UUID.randomUUID());
+        account.setNumberAccount(1234567890L);
+        account.setOwnerAccount("John Doe");
+        account.setBalance(new BigDecimal("15230.75"));
+        account.setCreatedAt(LocalDateTime.of(2024, 3, 1, 9, 30));
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setId(UUID.randomUUID());
+            transaction.setAccount(account);
+            transaction.setTransactionRef("DEP-2025-" + String.format("%06d", i));
+            if (i % 3 == 0) {
+                transaction.setDebit(BigDecimal.valueOf(1000 + i, 2));
+            } else {
+                transaction.setCredit(BigDecimal.valueOf(25000 + i * 7L, 2));
+            }
+            transaction.setDate(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(37L * i).plusNanos(123_456_000));
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
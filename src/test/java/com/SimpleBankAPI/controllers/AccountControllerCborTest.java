@@ -0,0 +1,162 @@
+package com.SimpleBankAPI.controllers;
+
+import com.SimpleBankAPI.dtos.BatchItemResult;
+import com.SimpleBankAPI.dtos.DepositRequest;
+import com.SimpleBankAPI.dtos.TransferRequest;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.services.AccountService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class AccountControllerCborTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    AccountService accountService;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+
+    @Test
+    void cborDeposit_shouldBeReadableAsCborAndJson() throws Exception {
+        UUID accountId = createAccount(BigDecimal.ZERO);
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setTransactionRef("CBOR-DEP-001");
+        depositRequest.setAmount(new BigDecimal("125.50"));
+
+        mockMvc.perform(post("/accounts/{id}/deposit", accountId)
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(depositRequest)))
+                .andExpect(status().isOk());
+
+        MvcResult cborResult = mockMvc.perform(get("/accounts/{id}/transactions", accountId)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        JsonNode fromCbor = cbor.readTree(cborResult.getResponse().getContentAsByteArray());
+        assertEquals("CBOR-DEP-001", fromCbor.get(0).get("transactionRef").textValue());
+        assertEquals(0, new BigDecimal("125.50").compareTo(fromCbor.get(0).get("credit").decimalValue()));
+
+        MvcResult jsonResult = mockMvc.perform(get("/accounts/{id}/transactions", accountId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        JsonNode fromJson = objectMapper.readTree(jsonResult.getResponse().getContentAsByteArray());
+        assertEquals(fromJson.get(0).get("id").textValue(),
+                cbor.convertValue(fromCbor.get(0).get("id").binaryValue(), UUID.class).toString());
+    }
+
+    @Test
+    void history_shouldBeStreamedAsJsonOrCbor() throws Exception {
+        UUID accountId = createAccount(BigDecimal.ZERO);
+        for (int i = 1; i <= 3; i++) {
+            DepositRequest depositRequest = new DepositRequest();
+            depositRequest.setTransactionRef("CBOR-HIST-00" + i);
+            depositRequest.setAmount(BigDecimal.valueOf(i));
+            mockMvc.perform(post("/accounts/{id}/deposit", accountId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsBytes(depositRequest)))
+                    .andExpect(status().isOk());
+        }
+        String startDate = LocalDateTime.now().minusHours(1).withNano(0).toString();
+        String finishDate = LocalDateTime.now().plusHours(1).withNano(0).toString();
+
+        MvcResult jsonResult = mockMvc.perform(get("/accounts/{id}/history", accountId)
+                        .param("startDate", startDate).param("finishDate", finishDate))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MvcResult cborResult = mockMvc.perform(get("/accounts/{id}/history", accountId)
+                        .param("startDate", startDate).param("finishDate", finishDate)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode fromJson = objectMapper.readTree(jsonResult.getResponse().getContentAsByteArray());
+        JsonNode fromCbor = cbor.readTree(cborResult.getResponse().getContentAsByteArray());
+        assertEquals(3, fromJson.size());
+        assertEquals(3, fromCbor.size());
+        assertEquals(List.of("CBOR-HIST-001", "CBOR-HIST-002", "CBOR-HIST-003"),
+                List.of(fromJson.get(0).get("transactionRef").textValue(), fromJson.get(1).get("transactionRef").textValue(),
+                        fromJson.get(2).get("transactionRef").textValue()));
+        assertEquals(0, BigDecimal.valueOf(3).compareTo(fromCbor.get(2).get("credit").decimalValue()));
+    }
+
+    @Test
+    void transferBatch_shouldReportEveryItem() throws Exception {
+        UUID fromId = createAccount(BigDecimal.valueOf(500));
+        UUID toId = createAccount(BigDecimal.ZERO);
+        TransferRequest missingAmount = transferRequest(fromId, toId, "CBOR-TRF-004", 1);
+        missingAmount.setAmount(null);
+        List<TransferRequest> transferRequests = List.of(
+                transferRequest(fromId, toId, "CBOR-TRF-001", 200),
+                transferRequest(fromId, toId, "CBOR-TRF-002", 1000),
+                transferRequest(fromId, UUID.randomUUID(), "CBOR-TRF-003", 50),
+                missingAmount,
+                transferRequest(null, toId, "CBOR-TRF-005", 10),
+                transferRequest(fromId, toId, "CBOR-TRF-006", 50));
+
+        MvcResult result = mockMvc.perform(post("/accounts/transfer/batch")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(transferRequests)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<BatchItemResult> results = cbor.readValue(result.getResponse().getContentAsByteArray(),
+                new TypeReference<List<BatchItemResult>>() {});
+        assertEquals(List.of(200, 400, 404, 400, 400, 200), results.stream().map(BatchItemResult::getStatus).toList());
+        assertEquals("Not enough money on balance", results.get(1).getMessage());
+        assertEquals("Amount must be positive", results.get(3).getMessage());
+        assertEquals("fromId and toId are required", results.get(4).getMessage());
+        assertEquals("CBOR-TRF-005", results.get(4).getTransactionRef());
+        assertEquals(0, BigDecimal.valueOf(250).compareTo(accountRepository.findById(fromId).orElseThrow().getBalance()));
+    }
+
+    private UUID createAccount(BigDecimal balance){
+        Account account = new Account();
+        account.setNumberAccount(42L);
+        account.setOwnerAccount("CBOR client");
+        account.setBalance(balance);
+        return accountService.createAccount(account).getId();
+    }
+
+    private TransferRequest transferRequest(UUID fromId, UUID toId, String transactionRef, int amount){
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setFromId(fromId);
+        transferRequest.setToId(toId);
+        transferRequest.setTransactionRef(transactionRef);
+        transferRequest.setAmount(BigDecimal.valueOf(amount));
+        return transferRequest;
+    }
+}
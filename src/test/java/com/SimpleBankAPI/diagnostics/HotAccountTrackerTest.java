@@ -0,0 +1,92 @@
+package com.SimpleBankAPI.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HotAccountTrackerTest {
+
+    @Test
+    void hotAccount_shouldStayTrackedAmongManyColdOnes(){
+        HotAccountTracker tracker = new HotAccountTracker(4, 1, 200, 1.0, 10);
+        UUID hot = UUID.randomUUID();
+        for (int i = 0; i < 100; i++) {
+            tracker.recordQueueWait(TimeUnit.MILLISECONDS.toNanos(2), UUID.randomUUID());
+            if (i % 4 == 0) {
+                tracker.recordQueueWait(TimeUnit.MILLISECONDS.toNanos(20), hot);
+            }
+        }
+        tracker.recordRetry(hot);
+
+        HotAccountsReport report = tracker.report(2);
+
+        assertEquals(2, report.accounts().size());
+        HotAccountsReport.HotAccount top = report.accounts().get(0);
+        assertEquals(hot, top.accountId());
+        assertEquals(25, top.queueWait().count());
+        assertEquals(1, top.retries());
+        assertEquals(125, report.queueWait().count());
+        assertEquals(1, report.retries());
+    }
+
+    @Test
+    void shortWaits_shouldOnlyCountInTotals(){
+        HotAccountTracker tracker = new HotAccountTracker(4, 1, 200, 1.0, 10);
+        String result = tracker.timeLockWait(UUID.randomUUID(), () -> "row");
+
+        assertEquals("row", result);
+        assertEquals(1, tracker.report(10).lockWait().count());
+        assertTrue(tracker.report(10).accounts().isEmpty());
+    }
+
+    @Test
+    void percentiles_shouldStayWithinBucketError(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros);
+        }
+
+        assertTrue(Math.abs(histogram.percentileMicros(50) - 5_000) <= 5_000 * 0.25);
+        assertTrue(Math.abs(histogram.percentileMicros(99) - 9_900) <= 9_900 * 0.25);
+        assertEquals(10_000, histogram.percentileMicros(100));
+        for (int bucket = 1; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.upperBoundOf(bucket)));
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.upperBoundOf(bucket - 1) + 1));
+        }
+    }
+
+    @Test
+    void slowOperation_shouldBeLoggedWithItsSql(){
+        HotAccountTracker tracker = new HotAccountTracker(4, 1, 0, 1.0, 2);
+        UUID accountId = UUID.randomUUID();
+        tracker.captureSql("select 1");
+
+        assertThrows(IllegalStateException.class, () -> tracker.runTracked("transfer", () -> {
+            tracker.captureSql("select * from account where id=? for update");
+            tracker.recordRetry(accountId);
+            throw new IllegalStateException("busy");
+        }, accountId));
+        tracker.runTracked("deposit", () -> tracker.captureSql("update account set balance=?"), accountId);
+        tracker.runTracked("withdrawal", () -> { }, accountId);
+
+        List<HotAccountsReport.SlowOperation> slow = tracker.report(10).slowOperations();
+        assertEquals(2, slow.size());
+        assertEquals("deposit", slow.get(0).operation());
+        assertEquals(List.of("update account set balance=?"), slow.get(0).sql());
+        assertEquals("withdrawal", slow.get(1).operation());
+    }
+
+    @Test
+    void unsampledOperations_shouldNotBeLogged(){
+        HotAccountTracker tracker = new HotAccountTracker(4, 1, 0, 0, 10);
+        tracker.runTracked("transfer", () -> tracker.captureSql("select 1"), UUID.randomUUID());
+
+        assertTrue(tracker.report(10).slowOperations().isEmpty());
+    }
+}
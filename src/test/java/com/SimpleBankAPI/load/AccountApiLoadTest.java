@@ -0,0 +1,277 @@
+package com.SimpleBankAPI.load;
+
+import com.SimpleBankAPI.exceptions.GlobalExceptionHandler;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.services.AccountService;
+import com.SimpleBankAPI.services.TransactionService;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load run against the HTTP API. Excluded from the regular build, run with
+ * {@code mvn -Pload-test test}. Settings are system properties, e.g.
+ * {@code -Dload.accounts=1000 -Dload.rate=200 -Dload.duration=30 -Dload.threads=32 -Dload.zipf=1.1
+ * -Dload.mix=create=5,deposit=30,withdrawal=20,transfer=30,history=15 -Dload.seed=42}.
+ * <p>
+ * Requests are issued open-loop at the target rate and latency is measured from the time a request
+ * was scheduled, so a slow server shows up as latency instead of as a lower request rate.
+ * The report is printed and written to {@code target/load-report.txt}. Accounts are seeded through
+ * {@link AccountService} before the run, because {@code POST /accounts/new} does not return the id;
+ * seeding is not part of the measured requests.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class AccountApiLoadTest {
+    private static final String[] OPERATIONS = {"create", "deposit", "withdrawal", "transfer", "history"};
+    private static final BigDecimal SEED_BALANCE = BigDecimal.valueOf(1000);
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    AccountService accountService;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    ShardRouter shardRouter;
+
+    private final int accountCount = Integer.getInteger("load.accounts", 1000);
+    private final int rate = Integer.getInteger("load.rate", 200);
+    private final int durationSeconds = Integer.getInteger("load.duration", 30);
+    private final int threads = Integer.getInteger("load.threads", 32);
+    private final double zipfExponent = Double.parseDouble(System.getProperty("load.zipf", "1.1"));
+    private final long seed = Long.getLong("load.seed", 42L);
+    private final String mix = System.getProperty("load.mix", "create=5,deposit=30,withdrawal=20,transfer=30,history=15");
+
+    private final LongAdder depositedCents = new LongAdder();
+    private final LongAdder withdrawnCents = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private HttpClient client;
+    private List<UUID> accounts;
+    private ZipfianSampler sampler;
+
+    @Test
+    void mixedWorkload_shouldKeepLedgerConsistent() throws Exception {
+        accounts = seedAccounts();
+        sampler = new ZipfianSampler(accountCount, zipfExponent);
+        double[] weights = parseMix();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        long totalRequests = (long) rate * durationSeconds;
+        long intervalNanos = 1_000_000_000L / rate;
+        AtomicLong nextRequest = new AtomicLong();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        List<Future<LoadReport>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(seed + t);
+            workers.add(executorService.submit(() -> {
+                LoadReport report = new LoadReport();
+                long request;
+                while ((request = nextRequest.getAndIncrement()) < totalRequests) {
+                    long scheduled = start + request * intervalNanos;
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    execute(pick(weights, random), request, random, scheduled, report);
+                }
+                return report;
+            }));
+        }
+        LoadReport report = new LoadReport();
+        for (Future<LoadReport> worker : workers) {
+            report.merge(worker.get());
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        executorService.shutdown();
+
+        List<String> violations = checkLedger();
+        String text = "load run: accounts=" + accountCount + " rate=" + rate + "/s duration=" + durationSeconds
+                + "s threads=" + threads + " zipf=" + zipfExponent + " mix=" + mix + System.lineSeparator()
+                + "seeding: " + accountCount + " accounts created through AccountService, not over HTTP, not measured"
+                + System.lineSeparator()
+                + report.format(elapsedSeconds, violations);
+        System.out.println(text);
+        Files.writeString(Path.of("target", "load-report.txt"), text);
+        assertTrue(violations.isEmpty(), text);
+    }
+
+    private List<UUID> seedAccounts() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < accountCount; i++) {
+            Account account = new Account();
+            account.setNumberAccount((long) i);
+            account.setOwnerAccount("load-" + i);
+            account.setBalance(SEED_BALANCE);
+            ids.add(accountService.createAccount(account).getId());
+        }
+        // ranks are shuffled so the hot accounts are spread over shards and lock stripes
+        Collections.shuffle(ids, new Random(seed));
+        return ids;
+    }
+
+    private void execute(String operation, long request, Random random, long scheduled, LoadReport report) {
+        UUID accountId = accounts.get(sampler.next(random));
+        String ref = "LOAD-" + runId + "-" + request;
+        int amount = 1 + random.nextInt(200);
+        HttpRequest httpRequest = switch (operation) {
+            case "create" -> post("/accounts/new",
+                    "{\"numberAccount\":" + request + ",\"ownerAccount\":\"load\",\"balance\":0}");
+            case "deposit" -> post("/accounts/" + accountId + "/deposit", body(ref, amount));
+            case "withdrawal" -> post("/accounts/" + accountId + "/withdrawal", body(ref, amount));
+            case "transfer" -> {
+                UUID toId = accounts.get(sampler.next(random));
+                while (toId.equals(accountId)) {
+                    toId = accounts.get(random.nextInt(accountCount));
+                }
+                yield post("/accounts/transfer", "{\"fromId\":\"" + accountId + "\",\"toId\":\"" + toId
+                        + "\",\"transactionRef\":\"" + ref + "\",\"amount\":" + amount + "}");
+            }
+            default -> HttpRequest.newBuilder(uri("/accounts/" + accountId + "/history?startDate="
+                            + LocalDate.now().atStartOfDay() + "&finishDate=" + LocalDateTime.now().plusMinutes(1).withNano(0)))
+                    .timeout(Duration.ofSeconds(30)).GET().build();
+        };
+        try {
+            HttpResponse<String> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - scheduled;
+            if (response.statusCode() == 200) {
+                report.success(operation, latency);
+                if (operation.equals("deposit")) depositedCents.add(amount * 100L);
+                if (operation.equals("withdrawal")) withdrawnCents.add(amount * 100L);
+            } else {
+                // Spring's own errors (malformed body, unhandled exceptions) come without an error code
+                String errorCode = response.headers().firstValue(GlobalExceptionHandler.ERROR_CODE_HEADER).orElse("-");
+                report.failure(operation, latency, response.statusCode() + " " + errorCode + " " + abbreviate(response.body()));
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            transportErrors.increment();
+            report.failure(operation, System.nanoTime() - scheduled, "transport " + e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Every seeded account must be non-negative and equal to its seed balance plus its history,
+     * and deposits and withdrawals acknowledged with 200 must explain the change of the total
+     * (transfers between seeded accounts cancel out).
+     */
+    private List<String> checkLedger() {
+        List<String> violations = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (UUID id : accounts) {
+            BigDecimal balance = shardRouter.callForAccount(id, () -> accountRepository.findById(id)).orElseThrow().getBalance();
+            BigDecimal fromHistory = SEED_BALANCE;
+            for (Transaction transaction : transactionService.getTransactionsById(id)) {
+                if (transaction.getCredit() != null) fromHistory = fromHistory.add(transaction.getCredit());
+                if (transaction.getDebit() != null) fromHistory = fromHistory.subtract(transaction.getDebit());
+            }
+            if (balance.signum() < 0) {
+                violations.add("negative balance " + balance + " on " + id);
+            }
+            if (balance.compareTo(fromHistory) != 0) {
+                violations.add("balance " + balance + " differs from history " + fromHistory + " on " + id);
+            }
+            total = total.add(balance);
+        }
+        BigDecimal expected = SEED_BALANCE.multiply(BigDecimal.valueOf(accountCount))
+                .add(BigDecimal.valueOf(depositedCents.sum(), 2))
+                .subtract(BigDecimal.valueOf(withdrawnCents.sum(), 2));
+        if (total.compareTo(expected) != 0) {
+            String violation = "total balance " + total + " differs from acknowledged operations " + expected;
+            // a request that timed out on the client may still have been applied on the server
+            violations.add(transportErrors.sum() == 0 ? violation : violation + " (" + transportErrors.sum() + " transport errors)");
+        }
+        return violations;
+    }
+
+    private double[] parseMix() {
+        double[] weights = new double[OPERATIONS.length];
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split("=");
+            int index = List.of(OPERATIONS).indexOf(entry[0].trim());
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown operation in load.mix: " + entry[0]);
+            }
+            weights[index] = Double.parseDouble(entry[1].trim());
+        }
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            weights[i] = sum;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= sum;
+        }
+        return weights;
+    }
+
+    private static String pick(double[] cumulativeWeights, Random random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return OPERATIONS[i];
+            }
+        }
+        return OPERATIONS[OPERATIONS.length - 1];
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String body(String ref, int amount) {
+        return "{\"transactionRef\":\"" + ref + "\",\"amount\":" + amount + "}";
+    }
+
+    private static String abbreviate(String body) {
+        String line = body == null ? "" : body.replaceAll("\\s+", " ");
+        return line.length() > 80 ? line.substring(0, 80) + "..." : line;
+    }
+}
@@ -0,0 +1,94 @@
+package com.SimpleBankAPI.load;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and outcomes of one load run. Each worker records into its own instance;
+ * the instances are merged once the run is over.
+ */
+class LoadReport {
+    private final Map<String, LongList> latencies = new TreeMap<>();
+    private final Map<String, Long> errors = new TreeMap<>();
+    private long succeeded;
+
+    void success(String operation, long latencyNanos) {
+        latencies.computeIfAbsent(operation, key -> new LongList()).add(latencyNanos);
+        succeeded++;
+    }
+
+    void failure(String operation, long latencyNanos, String errorType) {
+        latencies.computeIfAbsent(operation, key -> new LongList()).add(latencyNanos);
+        errors.merge(operation + " " + errorType, 1L, Long::sum);
+    }
+
+    void merge(LoadReport other) {
+        other.latencies.forEach((operation, values) -> latencies.computeIfAbsent(operation, key -> new LongList()).addAll(values));
+        other.errors.forEach((key, count) -> errors.merge(key, count, Long::sum));
+        succeeded += other.succeeded;
+    }
+
+    long getFailed() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    String format(double elapsedSeconds, List<String> invariantViolations) {
+        long total = succeeded + getFailed();
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("requests: %d, succeeded: %d, failed: %d, elapsed: %.1f s, throughput: %.1f req/s%n",
+                total, succeeded, getFailed(), elapsedSeconds, total / elapsedSeconds));
+        out.append(String.format("%-12s %8s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        LongList all = new LongList();
+        for (Map.Entry<String, LongList> entry : latencies.entrySet()) {
+            out.append(percentiles(entry.getKey(), entry.getValue()));
+            all.addAll(entry.getValue());
+        }
+        out.append(percentiles("all", all));
+        out.append("errors:").append(errors.isEmpty() ? " none" : "").append(System.lineSeparator());
+        errors.forEach((key, count) -> out.append(String.format("  %-100s %d%n", key, count)));
+        out.append("ledger invariants: ").append(invariantViolations.isEmpty() ? "ok" : "VIOLATED").append(System.lineSeparator());
+        invariantViolations.forEach(violation -> out.append("  ").append(violation).append(System.lineSeparator()));
+        return out.toString();
+    }
+
+    private static String percentiles(String operation, LongList values) {
+        long[] sorted = values.toSortedArray();
+        if (sorted.length == 0) {
+            return "";
+        }
+        return String.format("%-12s %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", operation, sorted.length,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
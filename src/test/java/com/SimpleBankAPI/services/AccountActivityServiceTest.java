@@ -0,0 +1,159 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.dtos.ActivitySummary;
+import com.SimpleBankAPI.dtos.DepositRequest;
+import com.SimpleBankAPI.dtos.WithdrawalRequest;
+import com.SimpleBankAPI.enums.SummaryGranularity;
+import com.SimpleBankAPI.exceptions.InvalidGranularityException;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.AccountActivity;
+import com.SimpleBankAPI.repositories.AccountActivityRepository;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class AccountActivityServiceTest {
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    AccountActivityService accountActivityService;
+    @Autowired
+    AccountActivityRepository accountActivityRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    AccountActivityBackfillJob accountActivityBackfillJob;
+    @Autowired
+    AccountService accountService;
+
+    @Test
+    void postedTransactions_shouldUpdateDailyAndMonthlySummary(){
+        Account account = new Account();
+        account.setBalance(BigDecimal.valueOf(1000));
+        account.setOwnerAccount("Nina");
+        account.setCreatedAt(LocalDateTime.now());
+        account.setNumberAccount(9876L);
+        Account savedAccount = accountRepository.save(account);
+
+        DepositRequest first = new DepositRequest();
+        first.setTransactionRef("SUM-001");
+        first.setAmount(BigDecimal.valueOf(100));
+        DepositRequest second = new DepositRequest();
+        second.setTransactionRef("SUM-002");
+        second.setAmount(BigDecimal.valueOf(50));
+        WithdrawalRequest withdrawalRequest = new WithdrawalRequest();
+        withdrawalRequest.setTransactionRef("SUM-003");
+        withdrawalRequest.setAmount(BigDecimal.valueOf(30));
+        transactionService.deposit(savedAccount.getId(), first);
+        transactionService.deposit(savedAccount.getId(), second);
+        transactionService.deposit(savedAccount.getId(), second);
+        transactionService.withdrawal(savedAccount.getId(), withdrawalRequest);
+
+        List<ActivitySummary> days = accountActivityService.getSummary(savedAccount.getId(), "day");
+        assertEquals(1, days.size());
+        assertEquals(LocalDate.now(), days.get(0).getBucketStart());
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(days.get(0).getCreditTotal()));
+        assertEquals(0, BigDecimal.valueOf(30).compareTo(days.get(0).getDebitTotal()));
+        assertEquals(2, days.get(0).getCreditCount());
+        assertEquals(1, days.get(0).getDebitCount());
+
+        List<ActivitySummary> months = accountActivityService.getSummary(savedAccount.getId(), "MONTH");
+        assertEquals(LocalDate.now().withDayOfMonth(1), months.get(0).getBucketStart());
+        assertEquals(2, months.get(0).getCreditCount());
+
+        transactionService.recalculate(savedAccount.getId());
+        List<ActivitySummary> rebuilt = accountActivityService.getSummary(savedAccount.getId(), "day");
+        assertEquals(1, rebuilt.size());
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(rebuilt.get(0).getCreditTotal()));
+        assertEquals(1, rebuilt.get(0).getDebitCount());
+    }
+
+    @Test
+    void unknownGranularity_shouldThrowException(){
+        Account account = new Account();
+        account.setBalance(BigDecimal.ZERO);
+        Account savedAccount = accountRepository.save(account);
+        assertThrows(InvalidGranularityException.class, () -> {
+            accountActivityService.getSummary(savedAccount.getId(), "week");
+        });
+    }
+
+    @Test
+    void bucketInsertedByAnotherNode_shouldBeIncrementedInstead(){
+        Account account = new Account();
+        account.setBalance(BigDecimal.ZERO);
+        Account savedAccount = accountRepository.save(account);
+        accountActivityRepository.save(bucket(savedAccount, BigDecimal.valueOf(40), 1));
+
+        // the update found nothing before the other row was committed
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> accountActivityService.insertOrIncrement(bucket(savedAccount, BigDecimal.valueOf(60), 2)));
+
+        List<ActivitySummary> days = accountActivityService.getSummary(savedAccount.getId(), "day");
+        assertEquals(1, days.size());
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(days.get(0).getCreditTotal()));
+        assertEquals(3, days.get(0).getCreditCount());
+    }
+
+    @Test
+    void postingsMadeBeforeSummaries_shouldBeBackfilledOnce(){
+        Account account = new Account();
+        account.setBalance(BigDecimal.ZERO);
+        Account savedAccount = accountRepository.save(account);
+        DepositRequest first = new DepositRequest();
+        first.setTransactionRef("SUM-BACKFILL-001");
+        first.setAmount(BigDecimal.valueOf(100));
+        DepositRequest second = new DepositRequest();
+        second.setTransactionRef("SUM-BACKFILL-002");
+        second.setAmount(BigDecimal.valueOf(50));
+        transactionService.deposit(savedAccount.getId(), first);
+        transactionService.deposit(savedAccount.getId(), second);
+        // the deposits were posted before summaries were kept
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> accountActivityRepository.deleteByAccountId(savedAccount.getId()));
+        assertTrue(accountActivityService.getSummary(savedAccount.getId(), "day").isEmpty());
+
+        assertTrue(accountActivityBackfillJob.backfillPending() >= 1);
+
+        List<ActivitySummary> days = accountActivityService.getSummary(savedAccount.getId(), "day");
+        assertEquals(1, days.size());
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(days.get(0).getCreditTotal()));
+        assertEquals(2, days.get(0).getCreditCount());
+        assertNotNull(accountRepository.findById(savedAccount.getId()).orElseThrow().getActivityBackfilledAt());
+        assertFalse(transactionService.backfillActivity(savedAccount.getId()));
+
+        Account created = accountService.createAccount(new Account());
+        assertNotNull(created.getActivityBackfilledAt());
+    }
+
+    private AccountActivity bucket(Account account, BigDecimal credit, long creditCount){
+        AccountActivity activity = new AccountActivity();
+        activity.setAccountId(account.getId());
+        activity.setGranularity(SummaryGranularity.DAY);
+        activity.setBucketStart(LocalDate.now());
+        activity.setCreditTotal(credit);
+        activity.setDebitTotal(BigDecimal.ZERO);
+        activity.setCreditCount(creditCount);
+        activity.setDebitCount(0);
+        return activity;
+    }
+}
@@ -0,0 +1,67 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.diagnostics.HotAccountTracker;
+import com.SimpleBankAPI.exceptions.AccountLockTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountLockManagerTest {
+
+    @Test
+    void sameStripeAccounts_shouldNotDeadlock(){
+        AccountLockManager lockManager = new AccountLockManager(1, 100, new HotAccountTracker(16, 1, 200, 0, 10));
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        Integer result = lockManager.callWithLocks(() -> 42, first, second);
+        assertEquals(42, result);
+    }
+
+    @Test
+    void lockedAccount_shouldTimeout() throws InterruptedException{
+        AccountLockManager lockManager = new AccountLockManager(16, 50, new HotAccountTracker(16, 1, 200, 0, 10));
+        UUID accountId = UUID.randomUUID();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        executorService.submit(() -> lockManager.runWithLocks(() -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, accountId));
+        locked.await();
+        assertThrows(AccountLockTimeoutException.class, () -> lockManager.runWithLocks(() -> {}, accountId));
+        release.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void oppositeOrder_shouldSerializeWithoutDeadlock() throws InterruptedException{
+        AccountLockManager lockManager = new AccountLockManager(1024, 5000, new HotAccountTracker(16, 1, 200, 0, 10));
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            final boolean forward = i % 2 == 0;
+            executorService.submit(() -> lockManager.runWithLocks(counter::incrementAndGet,
+                    forward ? first : second, forward ? second : first));
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1000, counter.get());
+    }
+}
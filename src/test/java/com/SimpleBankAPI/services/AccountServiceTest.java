@@ -2,10 +2,12 @@ package com.SimpleBankAPI.services;
 
 import com.SimpleBankAPI.models.Account;
 import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 
@@ -17,6 +19,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 public class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(1);
     @InjectMocks
     private AccountService accountService;
     @Test
@@ -0,0 +1,181 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.dtos.TransferRequest;
+import com.SimpleBankAPI.enums.ShardTransferStatus;
+import com.SimpleBankAPI.exceptions.AccountNotFoundException;
+import com.SimpleBankAPI.exceptions.NotEnoughMoneyException;
+import com.SimpleBankAPI.exceptions.TransactionRefDuplicationException;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.ShardTransfer;
+import com.SimpleBankAPI.models.Transaction;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.repositories.ShardTransferRepository;
+import com.SimpleBankAPI.repositories.TransactionRepository;
+import com.SimpleBankAPI.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "bank.sharding.shards[0].url=jdbc:h2:mem:shard0",
+        "bank.sharding.shards[0].username=sa",
+        "bank.sharding.shards[1].url=jdbc:h2:mem:shard1",
+        "bank.sharding.shards[1].username=sa"
+})
+@ActiveProfiles("test")
+public class CrossShardTransferTest {
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    ShardTransferRepository shardTransferRepository;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CrossShardTransferService crossShardTransferService;
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Test
+    void crossShardTransfer_shouldMoveMoneyOnce(){
+        Account sender = saveAccount(0, BigDecimal.valueOf(1000));
+        Account receiver = saveAccount(1, BigDecimal.ZERO);
+        TransferRequest transferRequest = transferRequest(sender.getId(), receiver.getId(), "XSHARD-001", 300);
+
+        transactionService.transfer(transferRequest);
+        transactionService.transfer(transferRequest);
+
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(balance(sender.getId())));
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(balance(receiver.getId())));
+        assertEquals(1, shardRouter.callOnShard(1, () -> transactionRepository.findByTransactionRef("XSHARD-001")).size());
+        ShardTransfer shardTransfer = shardRouter.callOnShard(0,
+                () -> shardTransferRepository.findByTransactionRef("XSHARD-001")).orElseThrow();
+        assertEquals(ShardTransferStatus.COMMITTED, shardTransfer.getStatus());
+    }
+
+    @Test
+    void crossShardTransfer_WithInsufficientFunds_shouldNotReserve(){
+        Account sender = saveAccount(1, BigDecimal.valueOf(100));
+        Account receiver = saveAccount(0, BigDecimal.ZERO);
+        assertThrows(NotEnoughMoneyException.class, () -> {
+            transactionService.transfer(transferRequest(sender.getId(), receiver.getId(), "XSHARD-002", 300));
+        });
+        assertTrue(shardRouter.callOnShard(1, () -> shardTransferRepository.findByTransactionRef("XSHARD-002")).isEmpty());
+        assertThrows(AccountNotFoundException.class, () -> {
+            transactionService.transfer(transferRequest(sender.getId(), idOnShard(0), "XSHARD-003", 50));
+        });
+    }
+
+    @Test
+    void reservedTransfers_shouldBeResumedOrCompensated(){
+        Account sender = saveAccount(0, BigDecimal.valueOf(1000));
+        Account receiver = saveAccount(1, BigDecimal.ZERO);
+        reserve(sender, receiver.getId(), "XSHARD-004", 200);
+        reserve(sender, idOnShard(1), "XSHARD-005", 100);
+
+        crossShardTransferService.resumeReserved();
+
+        assertEquals(0, BigDecimal.valueOf(800).compareTo(balance(sender.getId())));
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(balance(receiver.getId())));
+        assertEquals(ShardTransferStatus.COMMITTED, shardRouter.callOnShard(0,
+                () -> shardTransferRepository.findByTransactionRef("XSHARD-004")).orElseThrow().getStatus());
+        assertEquals(ShardTransferStatus.COMPENSATED, shardRouter.callOnShard(0,
+                () -> shardTransferRepository.findByTransactionRef("XSHARD-005")).orElseThrow().getStatus());
+    }
+
+    @Test
+    void refUsedOnReceiverShard_shouldNotTakeSendersMoney(){
+        Account sender = saveAccount(0, BigDecimal.valueOf(1000));
+        Account receiver = saveAccount(1, BigDecimal.valueOf(10));
+        saveCredit(receiver, "XSHARD-006", 10, LocalDateTime.now().minusHours(2));
+
+        assertThrows(TransactionRefDuplicationException.class, () -> {
+            transactionService.transfer(transferRequest(sender.getId(), receiver.getId(), "XSHARD-006", 300));
+        });
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(balance(sender.getId())));
+        assertEquals(0, BigDecimal.valueOf(10).compareTo(balance(receiver.getId())));
+        assertTrue(shardRouter.callOnShard(0, () -> shardTransferRepository.findByTransactionRef("XSHARD-006")).isEmpty());
+
+        // a reservation made anyway (by an earlier version) is credited, the older credit is not taken as its own
+        reserve(sender, receiver.getId(), "XSHARD-006", 300);
+        crossShardTransferService.resumeReserved();
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(balance(sender.getId())));
+        assertEquals(0, BigDecimal.valueOf(310).compareTo(balance(receiver.getId())));
+    }
+
+    private void saveCredit(Account account, String transactionRef, int amount, LocalDateTime date){
+        shardRouter.runForAccount(account.getId(), () -> {
+            Transaction transaction = new Transaction();
+            transaction.setAccount(account);
+            transaction.setTransactionRef(transactionRef);
+            transaction.setCredit(BigDecimal.valueOf(amount));
+            transaction.setDate(date);
+            transactionRepository.save(transaction);
+        });
+    }
+
+    // state left behind when the process stops right after the reserve step
+    private void reserve(Account sender, UUID toId, String transactionRef, int amount){
+        shardRouter.runOnShard(0, () -> {
+            Account account = accountRepository.findById(sender.getId()).orElseThrow();
+            account.setBalance(account.getBalance().subtract(BigDecimal.valueOf(amount)));
+            accountRepository.save(account);
+            Transaction transaction = new Transaction();
+            transaction.setAccount(account);
+            transaction.setTransactionRef(transactionRef);
+            transaction.setDebit(BigDecimal.valueOf(amount));
+            transaction.setDate(LocalDateTime.now());
+            transactionRepository.save(transaction);
+            ShardTransfer shardTransfer = new ShardTransfer();
+            shardTransfer.setTransactionRef(transactionRef);
+            shardTransfer.setFromId(sender.getId());
+            shardTransfer.setToId(toId);
+            shardTransfer.setAmount(BigDecimal.valueOf(amount));
+            shardTransfer.setStatus(ShardTransferStatus.RESERVED);
+            shardTransfer.setCreatedAt(LocalDateTime.now().minusHours(1));
+            shardTransfer.setUpdatedAt(shardTransfer.getCreatedAt());
+            shardTransferRepository.save(shardTransfer);
+        });
+    }
+
+    private Account saveAccount(int shard, BigDecimal balance){
+        Account account = new Account();
+        account.setId(idOnShard(shard));
+        account.setBalance(balance);
+        account.setOwnerAccount("Shard " + shard);
+        account.setNumberAccount(1000L + shard);
+        account.setCreatedAt(LocalDateTime.now());
+        return shardRouter.callOnShard(shard, () -> accountRepository.save(account));
+    }
+
+    private UUID idOnShard(int shard){
+        UUID id = UUID.randomUUID();
+        while (shardRouter.shardOf(id) != shard) {
+            id = UUID.randomUUID();
+        }
+        return id;
+    }
+
+    private BigDecimal balance(UUID accountId){
+        return shardRouter.callForAccount(accountId, () -> accountRepository.findById(accountId)).orElseThrow().getBalance();
+    }
+
+    private TransferRequest transferRequest(UUID fromId, UUID toId, String transactionRef, int amount){
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setFromId(fromId);
+        transferRequest.setToId(toId);
+        transferRequest.setTransactionRef(transactionRef);
+        transferRequest.setAmount(BigDecimal.valueOf(amount));
+        return transferRequest;
+    }
+}
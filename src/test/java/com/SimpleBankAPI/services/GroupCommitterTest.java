@@ -0,0 +1,109 @@
+package com.SimpleBankAPI.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GroupCommitterTest {
+
+    @Test
+    void submissionsWhileGroupExecutes_shouldShareOneExecution() throws Exception {
+        List<Integer> groupSizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        GroupCommitter<String, Integer, Integer> groupCommitter = new GroupCommitter<>(TimeUnit.SECONDS.toNanos(5), 3,
+                (key, items) -> {
+                    groupSizes.add(items.size());
+                    if (items.get(0).getRequest() == 0) {
+                        firstStarted.countDown();
+                        await(releaseFirst);
+                    }
+                    for (GroupCommitter.Item<Integer, Integer> item : items) {
+                        if (item.getRequest() < 0) {
+                            item.fail(new IllegalArgumentException("negative"));
+                        } else {
+                            item.succeed(item.getRequest() * 10);
+                        }
+                    }
+                });
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> groupCommitter.submit("account", 0), executorService);
+        assertTrue(firstStarted.await(10, TimeUnit.SECONDS));
+
+        // the first group is still executing, so these wait for each other until the group is full
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (Integer request : List.of(1, -2, 3)) {
+            results.add(CompletableFuture.supplyAsync(() -> groupCommitter.submit("account", request), executorService));
+        }
+        assertEquals(10, results.get(0).get(10, TimeUnit.SECONDS));
+        releaseFirst.countDown();
+
+        assertEquals(0, first.get(10, TimeUnit.SECONDS));
+        assertEquals(30, results.get(2).join());
+        CompletionException exception = assertThrows(CompletionException.class, () -> results.get(1).join());
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertEquals(List.of(1, 3), groupSizes);
+        assertEquals(2, groupCommitter.getExecutedGroups());
+        assertEquals(4, groupCommitter.getExecutedItems());
+        executorService.shutdown();
+    }
+
+    @Test
+    void failedExecution_shouldFailEveryItem() throws Exception {
+        GroupCommitter<String, Integer, Integer> groupCommitter = new GroupCommitter<>(TimeUnit.MILLISECONDS.toNanos(200), 3,
+                (key, items) -> {
+                    items.forEach(item -> item.succeed(item.getRequest()));
+                    throw new IllegalStateException("commit failed");
+                });
+
+        for (CompletableFuture<Integer> result : submitAll(groupCommitter, List.of(1, 2, 3))) {
+            CompletionException exception = assertThrows(CompletionException.class, result::join);
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    void uncontendedSubmission_shouldNotWaitForWindow() {
+        GroupCommitter<String, Integer, Integer> groupCommitter = new GroupCommitter<>(TimeUnit.SECONDS.toNanos(5), 64,
+                (key, items) -> items.forEach(item -> item.succeed(item.getRequest() + 1)));
+        long start = System.nanoTime();
+
+        assertEquals(2, groupCommitter.submit("a", 1));
+        assertEquals(3, groupCommitter.submit("a", 2));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2, groupCommitter.getExecutedGroups());
+    }
+
+    private List<CompletableFuture<Integer>> submitAll(GroupCommitter<String, Integer, Integer> groupCommitter,
+                                                      List<Integer> requests) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(requests.size());
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (Integer request : requests) {
+            results.add(CompletableFuture.supplyAsync(() -> groupCommitter.submit("account", request), executorService));
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.SimpleBankAPI.services;
+
+import com.SimpleBankAPI.dtos.StandingOrderRequest;
+import com.SimpleBankAPI.dtos.TransferRequest;
+import com.SimpleBankAPI.enums.StandingOrderFrequency;
+import com.SimpleBankAPI.enums.StandingOrderStatus;
+import com.SimpleBankAPI.exceptions.InvalidScheduleException;
+import com.SimpleBankAPI.exceptions.LimitReachedException;
+import com.SimpleBankAPI.models.Account;
+import com.SimpleBankAPI.models.StandingOrder;
+import com.SimpleBankAPI.repositories.AccountRepository;
+import com.SimpleBankAPI.repositories.StandingOrderRepository;
+import com.SimpleBankAPI.repositories.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class StandingOrderServiceTest {
+    @Autowired
+    StandingOrderService standingOrderService;
+    @Autowired
+    StandingOrderScheduler standingOrderScheduler;
+    @Autowired
+    StandingOrderRepository standingOrderRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    TransactionService transactionService;
+
+    // runScheduler moves the wheel a day ahead, every test starts from an empty wheel at the current time
+    @BeforeEach
+    void resetScheduler(){
+        standingOrderScheduler.reset(LocalDateTime.now());
+    }
+
+    @Test
+    void dueOrder_shouldTransferOncePerOccurrence(){
+        UUID fromId = createAccount(7001L, BigDecimal.valueOf(1000));
+        UUID toId = createAccount(7002L, BigDecimal.ZERO);
+        StandingOrder standingOrder = standingOrderService.createStandingOrder(fromId, request(toId, BigDecimal.valueOf(100)));
+        LocalDate today = LocalDate.now();
+
+        runScheduler();
+        standingOrderService.executeOccurrence(standingOrder.getId(), fromId, today);
+
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(accountRepository.findById(fromId).get().getBalance()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(accountRepository.findById(toId).get().getBalance()));
+        assertEquals(2, transactionRepository.findByTransactionRef(StandingOrderService.transactionRef(standingOrder.getId(), today)).size());
+        StandingOrder executed = standingOrderRepository.findById(standingOrder.getId()).get();
+        assertEquals(today, executed.getLastExecution());
+        assertEquals(today.plusDays(1), executed.getNextExecution());
+        assertNull(executed.getLastError());
+    }
+
+    @Test
+    void failedOccurrence_shouldBeSkippedWithItsError(){
+        UUID fromId = createAccount(7003L, BigDecimal.valueOf(50));
+        UUID toId = createAccount(7004L, BigDecimal.ZERO);
+        StandingOrder standingOrder = standingOrderService.createStandingOrder(fromId, request(toId, BigDecimal.valueOf(100)));
+
+        runScheduler();
+
+        StandingOrder skipped = standingOrderRepository.findById(standingOrder.getId()).get();
+        assertEquals("Not enough money on balance", skipped.getLastError());
+        assertEquals(LocalDate.now().plusDays(1), skipped.getNextExecution());
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(accountRepository.findById(fromId).get().getBalance()));
+    }
+
+    @Test
+    void occurrenceAlreadyTransferred_shouldNotPayTwice(){
+        UUID fromId = createAccount(7005L, BigDecimal.valueOf(1000));
+        UUID toId = createAccount(7006L, BigDecimal.ZERO);
+        StandingOrderRequest standingOrderRequest = request(toId, BigDecimal.valueOf(100));
+        standingOrderRequest.setEndDate(LocalDate.now());
+        StandingOrder standingOrder = standingOrderService.createStandingOrder(fromId, standingOrderRequest);
+        // the transfer committed but the order was not advanced, as after a crash
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setFromId(fromId);
+        transferRequest.setToId(toId);
+        transferRequest.setAmount(BigDecimal.valueOf(100));
+        transferRequest.setTransactionRef(StandingOrderService.transactionRef(standingOrder.getId(), LocalDate.now()));
+        transactionService.transfer(transferRequest);
+
+        runScheduler();
+
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(accountRepository.findById(fromId).get().getBalance()));
+        assertEquals(StandingOrderStatus.COMPLETED, standingOrderRepository.findById(standingOrder.getId()).get().getStatus());
+    }
+
+    @Test
+    void invalidOrders_shouldBeRejected(){
+        UUID fromId = createAccount(7007L, BigDecimal.ZERO);
+        UUID toId = createAccount(7008L, BigDecimal.ZERO);
+        StandingOrderRequest pastStart = request(toId, BigDecimal.TEN);
+        pastStart.setStartDate(LocalDate.now().minusDays(1));
+
+        assertThrows(LimitReachedException.class,
+                () -> standingOrderService.createStandingOrder(fromId, request(toId, BigDecimal.valueOf(6000))));
+        assertThrows(InvalidScheduleException.class, () -> standingOrderService.createStandingOrder(fromId, pastStart));
+    }
+
+    @Test
+    void monthlyOrders_shouldKeepTheirDayOfMonth(){
+        LocalDate start = LocalDate.of(2024, 1, 31);
+        LocalDate february = StandingOrderFrequency.MONTHLY.next(start, start);
+
+        assertEquals(LocalDate.of(2024, 2, 29), february);
+        assertEquals(LocalDate.of(2024, 3, 31), StandingOrderFrequency.MONTHLY.next(start, february));
+    }
+
+    private void runScheduler(){
+        standingOrderScheduler.loadDue(LocalDateTime.now());
+        // past the spread window, so every loaded order is due
+        while (standingOrderScheduler.runDue(LocalDateTime.now().plusDays(1)) > 0) {
+        }
+    }
+
+    private StandingOrderRequest request(UUID toId, BigDecimal amount){
+        StandingOrderRequest standingOrderRequest = new StandingOrderRequest();
+        standingOrderRequest.setToId(toId);
+        standingOrderRequest.setAmount(amount);
+        standingOrderRequest.setFrequency(StandingOrderFrequency.DAILY);
+        return standingOrderRequest;
+    }
+
+    private UUID createAccount(long number, BigDecimal balance){
+        Account account = new Account();
+        account.setCreatedAt(LocalDateTime.now());
+        account.setBalance(balance);
+        account.setNumberAccount(number);
+        account.setOwnerAccount("Standing");
+        return accountRepository.save(account).getId();
+    }
+}
@@ -0,0 +1,38 @@
+package com.SimpleBankAPI.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    void entries_shouldComeOutAtTheirTick(){
+        TimingWheel<String> wheel = new TimingWheel<>(8, 100);
+        wheel.schedule("later", 103);
+        wheel.schedule("next turn", 111);
+        wheel.schedule("late", 90);
+
+        assertEquals(List.of("late"), wheel.advance(100, 10));
+        assertTrue(wheel.advance(102, 10).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(110, 10));
+        assertEquals(List.of("next turn"), wheel.advance(111, 10));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_shouldStopAtLimitAndResume(){
+        TimingWheel<Integer> wheel = new TimingWheel<>(4, 0);
+        for (int i = 0; i < 5; i++) {
+            wheel.schedule(i, 1);
+        }
+        wheel.schedule(5, 2);
+
+        assertEquals(List.of(0, 1, 2), wheel.advance(10, 3));
+        assertEquals(List.of(3, 4, 5), wheel.advance(10, 3));
+        assertEquals(0, wheel.size());
+    }
+}
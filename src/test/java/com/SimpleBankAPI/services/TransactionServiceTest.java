@@ -1,5 +1,6 @@
 package com.SimpleBankAPI.services;
 
+import com.SimpleBankAPI.diagnostics.HotAccountTracker;
 import com.SimpleBankAPI.dtos.DepositRequest;
 import com.SimpleBankAPI.dtos.TransferRequest;
 import com.SimpleBankAPI.dtos.WithdrawalRequest;
@@ -21,12 +22,18 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -41,6 +48,8 @@ public class TransactionServiceTest {
     AccountRepository accountRepository;
     @Autowired
     TransactionService transactionService;
+    @Autowired
+    HotAccountTracker hotAccountTracker;
 
 
     @Test
@@ -125,6 +134,34 @@ public class TransactionServiceTest {
         });
     }
 
+    @Test
+    void transfer_shouldRecordRowLockWaits(){
+        Account sender = new Account();
+        sender.setCreatedAt(LocalDateTime.now());
+        sender.setBalance(BigDecimal.valueOf(200));
+        sender.setNumberAccount(5680L);
+        sender.setOwnerAccount("Mehmet");
+        Account receiver = new Account();
+        receiver.setCreatedAt(LocalDateTime.now());
+        receiver.setBalance(BigDecimal.ZERO);
+        receiver.setNumberAccount(5681L);
+        receiver.setOwnerAccount("Ahmet");
+        Account savedSender = accountRepository.save(sender);
+        Account savedReceiver = accountRepository.save(receiver);
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setAmount(BigDecimal.valueOf(50));
+        transferRequest.setTransactionRef("TRANSFER-0040");
+        transferRequest.setToId(savedReceiver.getId());
+        transferRequest.setFromId(savedSender.getId());
+        long lockWaits = hotAccountTracker.report(0).lockWait().count();
+        long queueWaits = hotAccountTracker.report(0).queueWait().count();
+
+        transactionService.transfer(transferRequest);
+
+        assertEquals(lockWaits + 2, hotAccountTracker.report(0).lockWait().count());
+        assertEquals(queueWaits + 1, hotAccountTracker.report(0).queueWait().count());
+    }
+
     @Test
     void transfer_With_NegativeAmount_ShouldThrowException(){
         Account sender = new Account();
@@ -183,8 +220,56 @@ public class TransactionServiceTest {
 
         Account finalSender = accountRepository.findById(savedSender.getId()).orElseThrow();
         Account finalReceiver = accountRepository.findById(savedReceiver.getId()).orElseThrow();
-        assertEquals(BigDecimal.ZERO, finalSender.getBalance());
-        assertEquals(BigDecimal.valueOf(1000), finalReceiver.getBalance());
+        assertEquals(0, BigDecimal.ZERO.compareTo(finalSender.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(finalReceiver.getBalance()));
+
+    }
+
+    @Test
+    void concurrentDeposits_shouldKeepOwnResults() throws Exception{
+        Account account = new Account();
+        account.setCreatedAt(LocalDateTime.now());
+        account.setBalance(BigDecimal.valueOf(1000));
+        account.setOwnerAccount("Mia");
+        account.setNumberAccount(4321L);
+        Account savedAccount = accountRepository.save(account);
+
+        long groupsBefore = transactionService.getDepositGroupCommitter().getExecutedGroups();
+        long itemsBefore = transactionService.getDepositGroupCommitter().getExecutedItems();
+        ExecutorService executorService = Executors.newFixedThreadPool(24);
+        List<Future<Transaction>> deposits = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            deposits.add(executorService.submit(depositTask(savedAccount.getId(), "GC-" + i, 10)));
+        }
+        Future<Transaction> first = executorService.submit(depositTask(savedAccount.getId(), "GC-DUP", 50));
+        Future<Transaction> retry = executorService.submit(depositTask(savedAccount.getId(), "GC-DUP", 50));
+        Future<Transaction> invalid = executorService.submit(depositTask(savedAccount.getId(), "GC-NEG", -5));
+        Future<Transaction> missingAmount = executorService.submit(depositTask(savedAccount.getId(), "GC-NULL", null));
+        executorService.shutdown();
+
+        for (Future<Transaction> deposit : deposits) {
+            assertEquals(0, BigDecimal.TEN.compareTo(deposit.get().getCredit()));
+        }
+        assertEquals(first.get().getId(), retry.get().getId());
+        ExecutionException exception = assertThrows(ExecutionException.class, invalid::get);
+        assertInstanceOf(InvalidAmountException.class, exception.getCause());
+        exception = assertThrows(ExecutionException.class, missingAmount::get);
+        assertInstanceOf(InvalidAmountException.class, exception.getCause());
+        // invalid requests never join a group, the 22 valid ones share fewer executions
+        long groups = transactionService.getDepositGroupCommitter().getExecutedGroups() - groupsBefore;
+        assertEquals(22, transactionService.getDepositGroupCommitter().getExecutedItems() - itemsBefore);
+        assertTrue(groups < 22, "expected grouped deposits, got " + groups + " groups");
+        assertEquals(21, transactionRepository.findByAccountId(savedAccount.getId()).size());
+        Account finalAccount = accountRepository.findById(savedAccount.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(1250).compareTo(finalAccount.getBalance()));
+    }
 
+    private Callable<Transaction> depositTask(UUID accountId, String transactionRef, Integer amount){
+        return () -> {
+            DepositRequest depositRequest = new DepositRequest();
+            depositRequest.setTransactionRef(transactionRef);
+            depositRequest.setAmount(amount == null ? null : BigDecimal.valueOf(amount));
+            return transactionService.deposit(accountId, depositRequest);
+        };
     }
 }
@@ -0,0 +1,156 @@
+package com.SimpleBankAPI.sharding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplicaRoutingDataSourceTest {
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    private ReplicaLagMonitor replicaLagMonitor;
+    private TransactionTemplate readOnlyTemplate;
+    private TransactionTemplate readWriteTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp(){
+        DataSource primaryDataSource = database("replica-test-primary", "primary");
+        DataSource replicaDataSource = database("replica-test-replica", "replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        ShardRoutingDataSource shardRoutingDataSource = new ShardRoutingDataSource(List.of(primaryDataSource));
+        use(new ReplicaRoutingDataSource(shardRoutingDataSource, List.of(replicaDataSource), 5000));
+    }
+
+    @AfterEach
+    void tearDown(){
+        replicaLagMonitor.close();
+        primary.execute("drop all objects");
+        replica.execute("drop all objects");
+    }
+
+    @Test
+    void readOnlyTransactions_shouldStayOnPrimaryUntilHeartbeatIsReplicated(){
+        replicaLagMonitor.heartbeat();
+
+        assertEquals("primary", readOnly());
+        assertEquals(-1, replicaRoutingDataSource.lagMillis(0));
+
+        replicate();
+        replicaLagMonitor.heartbeat();
+
+        assertEquals("replica", readOnly());
+        assertEquals("primary", readWrite());
+        assertTrue(replicaRoutingDataSource.status().get(0).usable());
+    }
+
+    @Test
+    void readOnlyTransactions_shouldFallBackToPrimaryWhenReplicaLags(){
+        replica.update("insert into replica_heartbeats (shard, beat_at) values (0, ?)", System.currentTimeMillis() - 10_000);
+        replicaLagMonitor.heartbeat();
+
+        assertFalse(replicaRoutingDataSource.isUsable(0));
+        assertTrue(replicaRoutingDataSource.lagMillis(0) >= 10_000);
+        assertEquals("primary", readOnly());
+    }
+
+    @Test
+    void readOnlyTransactions_shouldFallBackToPrimaryWhenReplicaIsDown(){
+        use(new ReplicaRoutingDataSource(replicaRoutingDataSource.getPrimary(), List.of(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("Connection refused");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new SQLException("Connection refused");
+            }
+        }), 5000));
+        replicaRoutingDataSource.markReplicatedUpTo(0, System.currentTimeMillis());
+
+        assertEquals("primary", readOnly());
+        assertFalse(replicaRoutingDataSource.isUsable(0));
+    }
+
+    @Test
+    void replica_shouldStopServingReadsWhenHeartbeatsStall() throws InterruptedException {
+        use(new ReplicaRoutingDataSource(replicaRoutingDataSource.getPrimary(), replicaRoutingDataSource.getReplicas(), 200));
+        replicaLagMonitor.heartbeat();
+        replicate();
+        replicaLagMonitor.heartbeat();
+        assertEquals("replica", readOnly());
+
+        // no heartbeat, as if the monitor were held up by another job
+        Thread.sleep(300);
+
+        assertFalse(replicaRoutingDataSource.isUsable(0));
+        assertEquals("primary", readOnly());
+    }
+
+    @Test
+    void startedMonitor_shouldBeatOnItsOwnThread() throws InterruptedException {
+        replicaLagMonitor.start(20);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (primary.queryForList("select beat_at from replica_heartbeats where shard = 0", Long.class).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        replicate();
+        while (!replicaRoutingDataSource.isUsable(0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("replica", readOnly());
+    }
+
+    private void use(ReplicaRoutingDataSource replicaRoutingDataSource){
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+        replicaLagMonitor = new ReplicaLagMonitor(replicaRoutingDataSource);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaRoutingDataSource.getPrimary());
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        readWriteTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    private String readOnly(){
+        return readOnlyTemplate.execute(status -> jdbcTemplate.queryForObject("select name from marker", String.class));
+    }
+
+    private String readWrite(){
+        return readWriteTemplate.execute(status -> jdbcTemplate.queryForObject("select name from marker", String.class));
+    }
+
+    // what replication would do
+    private void replicate(){
+        Long beatAt = primary.queryForObject("select beat_at from replica_heartbeats where shard = 0", Long.class);
+        replica.update("insert into replica_heartbeats (shard, beat_at) values (0, ?)", beatAt);
+    }
+
+    private static DataSource database(String name, String marker){
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table replica_heartbeats (shard integer primary key, beat_at bigint)");
+        jdbcTemplate.execute("create table marker (name varchar(16))");
+        jdbcTemplate.update("insert into marker (name) values (?)", marker);
+        return dataSource;
+    }
+}